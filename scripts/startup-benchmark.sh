@@ -0,0 +1,85 @@
+#!/usr/bin/env bash
+#
+# Measures the time from JVM launch to the first successful (HTTP 200) GET /v1/report, with and without the
+# fast-startup optimizations (Spring AOT, CDS archive, prod profile without springdoc).
+#
+# Usage: ./mvnw -Pfast-startup package -DskipTests && scripts/startup-benchmark.sh [runs]
+#
+# Environment:
+#   JAVA        java executable to use (default: java)
+#   PORT        HTTP port used by the application under test (default: 18080)
+#   TIMEOUT_S   maximum time to wait for a successful response, per run (default: 60)
+
+set -euo pipefail
+
+RUNS="${1:-10}"
+JAVA="${JAVA:-java}"
+PORT="${PORT:-18080}"
+TIMEOUT_S="${TIMEOUT_S:-60}"
+
+PROJECT_DIR="$(cd "$(dirname "$0")/.." && pwd)"
+JAR_NAME="error-handling-0.0.1-SNAPSHOT.jar"
+BASELINE_JAR="${PROJECT_DIR}/target/${JAR_NAME}"
+FAST_STARTUP_DIR="${PROJECT_DIR}/target/fast-startup"
+URL="http://localhost:${PORT}/v1/report?userId=benchmark&reportName=startup"
+
+if [[ ! -f "${BASELINE_JAR}" || ! -f "${FAST_STARTUP_DIR}/application.jsa" ]]; then
+  echo "Missing build output, run: ./mvnw -Pfast-startup package -DskipTests" >&2
+  exit 1
+fi
+
+now_ms() {
+  date +%s%3N
+}
+
+# Starts the application with the given arguments, polls /v1/report until it answers 200, and prints the elapsed time
+# in milliseconds. The simulated repository and report client fail randomly, so non-200 answers are retried. The
+# report store is disabled, so that no run starts with reports stored by a previous one.
+measure_once() {
+  local start pid status elapsed
+  start="$(now_ms)"
+  "${JAVA}" "$@" --server.port="${PORT}" --report-store.enabled=false >/dev/null 2>&1 &
+  pid=$!
+  while true; do
+    status="$(curl -s -o /dev/null -w '%{http_code}' "${URL}" || true)"
+    elapsed=$(( $(now_ms) - start ))
+    if [[ "${status}" == "200" ]]; then
+      break
+    fi
+    if (( elapsed > TIMEOUT_S * 1000 )) || ! kill -0 "${pid}" 2>/dev/null; then
+      kill "${pid}" 2>/dev/null || true
+      wait "${pid}" 2>/dev/null || true
+      echo "Application did not answer 200 within ${TIMEOUT_S}s" >&2
+      exit 1
+    fi
+    sleep 0.01
+  done
+  kill "${pid}"
+  wait "${pid}" 2>/dev/null || true
+  echo "${elapsed}"
+}
+
+# Runs measure_once RUNS times and prints min, median and max.
+benchmark() {
+  local label="$1"
+  shift
+  local samples=()
+  for ((i = 0; i < RUNS; i++)); do
+    samples+=("$(measure_once "$@")")
+  done
+  local sorted
+  sorted="$(printf '%s\n' "${samples[@]}" | sort -n)"
+  printf '%-14s runs=%d min=%sms median=%sms max=%sms\n' "${label}" "${RUNS}" \
+    "$(head -n 1 <<<"${sorted}")" \
+    "$(sed -n "$(( (RUNS + 1) / 2 ))p" <<<"${sorted}")" \
+    "$(tail -n 1 <<<"${sorted}")"
+}
+
+benchmark "baseline" -jar "${BASELINE_JAR}"
+
+cd "${FAST_STARTUP_DIR}"
+benchmark "fast-startup" \
+  -XX:SharedArchiveFile=application.jsa \
+  -Dspring.aot.enabled=true \
+  -Dspring.profiles.active=prod \
+  -jar "${JAR_NAME}"
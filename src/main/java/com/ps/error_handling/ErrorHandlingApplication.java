@@ -5,6 +5,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.core.env.Environment;
 
@@ -27,12 +28,14 @@ public class ErrorHandlingApplication {
     }
 
     /**
-     * ApplicationRunner bean that logs the SwaggerUI URL on startup.
+     * ApplicationRunner bean that logs the SwaggerUI URL on startup. It is skipped when SwaggerUI is disabled through
+     * {@code springdoc.swagger-ui.enabled}.
      *
      * @param env the Spring environment
      * @return an ApplicationRunner that logs the SwaggerUI URL
      */
     @Bean
+    @ConditionalOnProperty(name = "springdoc.swagger-ui.enabled", matchIfMissing = true)
     public ApplicationRunner logOpenApiDocsUrl(Environment env) {
         return args -> {
             String port = env.getProperty("server.port", "8080");
@@ -0,0 +1,135 @@
+package com.ps.error_handling.admission;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.util.UrlPathHelper;
+
+import com.ps.error_handling.admission.exception.ServiceOverloadedException;
+import com.ps.error_handling.config.AdmissionControlProperties;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Servlet filter applying admission control in front of the report endpoint. Each request is classified into a
+ * {@link RequestPriority} and must obtain a slot from the {@link AdmissionQueue} before reaching the controller.
+ * Requests that are shed are rendered by the {@code ErrorHandler} through the {@link HandlerExceptionResolver}, so they
+ * get the same Problem Details format as any other error; should no resolver handle them, they still get a 503 with a
+ * {@code Retry-After} header.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final String REPORT_PATH = "/v1/report";
+
+    private final AdmissionControlProperties properties;
+    private final AdmissionQueue admissionQueue;
+    private final HandlerExceptionResolver handlerExceptionResolver;
+
+    /**
+     * Constructs a new AdmissionControlFilter.
+     *
+     * @param properties the admission control configuration
+     * @param handlerExceptionResolver the resolver used to render shed requests
+     */
+    public AdmissionControlFilter(
+            AdmissionControlProperties properties,
+            @Qualifier("handlerExceptionResolver") HandlerExceptionResolver handlerExceptionResolver) {
+        this.properties = properties;
+        this.admissionQueue = new AdmissionQueue(
+                properties.maxConcurrent(),
+                properties.maxQueueSize(),
+                properties.maxQueueWait(),
+                properties.queueDelayTarget(),
+                properties.queueDelayInterval(),
+                properties.lifoThreshold(),
+                properties.retryAfter());
+        this.handlerExceptionResolver = handlerExceptionResolver;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.enabled()
+                || !REPORT_PATH.equals(UrlPathHelper.defaultInstance.getPathWithinApplication(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try {
+            admissionQueue.acquire(resolvePriority(request));
+        } catch (ServiceOverloadedException ex) {
+            if (handlerExceptionResolver.resolveException(request, response, null, ex) == null) {
+                // Never let a shed request go out as an empty 200 when no resolver renders it
+                response.setHeader(
+                        HttpHeaders.RETRY_AFTER,
+                        String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())));
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            }
+            return;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnCompletion());
+            } else {
+                admissionQueue.release();
+            }
+        }
+    }
+
+    /**
+     * Resolves the priority class of a request. The caller identity comes first: the priority configured for the
+     * authenticated caller, or the default priority, is the highest class the request can get. The priority header can
+     * only lower it, so that a client cannot claim a class above its own and get other callers shed.
+     *
+     * @param request the incoming request
+     * @return the priority class of the request
+     */
+    RequestPriority resolvePriority(HttpServletRequest request) {
+        RequestPriority callerPriority = Optional.ofNullable(request.getRemoteUser())
+                .map(caller -> properties.callerPriorities().get(caller))
+                .orElse(properties.defaultPriority());
+        return RequestPriority.parse(request.getHeader(properties.priorityHeader()))
+                .filter(requested -> requested.compareTo(callerPriority) < 0)
+                .orElse(callerPriority);
+    }
+
+    private final class ReleaseOnCompletion implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            admissionQueue.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // onComplete follows once the timeout has been handled
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            // onComplete follows once the error has been handled
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.ps.error_handling.admission;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.ps.error_handling.admission.exception.ServiceOverloadedException;
+
+/**
+ * Bounded, priority-aware admission queue. At most {@code maxConcurrent} requests are admitted at the same time; the
+ * others wait in one queue per {@link RequestPriority} for up to {@code maxQueueWait}.
+ *
+ * <p>Requests are shed, lowest priority first, when the queues are full or when they have waited too long. Freed slots
+ * go to the highest priority queue. A queue whose oldest waiter has been waiting longer than {@code lifoThreshold} is
+ * considered stale and is served newest-first, as the oldest waiters are the most likely to have been abandoned by
+ * their clients already.
+ *
+ * <p>The queue also watches the delay of admitted requests, in the manner of CoDel: when even the shortest delay
+ * observed over a whole {@code queueDelayInterval} exceeds {@code queueDelayTarget}, the queue is standing rather than
+ * absorbing a burst, and new waiters are shed after {@code queueDelayTarget} instead of {@code maxQueueWait}. The queue
+ * recovers as soon as an interval sees a request admitted within the target.
+ */
+public class AdmissionQueue {
+
+    private static final RequestPriority[] HIGHEST_FIRST = {
+        RequestPriority.HIGH, RequestPriority.NORMAL, RequestPriority.LOW
+    };
+
+    private final int maxConcurrent;
+    private final int maxQueueSize;
+    private final long maxQueueWaitNanos;
+    private final long queueDelayTargetNanos;
+    private final long queueDelayIntervalNanos;
+    private final long lifoThresholdNanos;
+    private final Duration retryAfter;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<RequestPriority, Deque<Waiter>> queues = new EnumMap<>(RequestPriority.class);
+    private int inFlight;
+    private int queued;
+    private long intervalStartedAt = System.nanoTime();
+    private long minQueueDelayNanos = Long.MAX_VALUE;
+    private boolean overloaded;
+
+    /**
+     * Constructs a new AdmissionQueue.
+     *
+     * @param maxConcurrent the maximum number of requests admitted at the same time
+     * @param maxQueueSize the maximum number of waiting requests, across all priorities
+     * @param maxQueueWait the maximum time a request may wait for a slot
+     * @param queueDelayTarget the queueing delay above which the queue is considered standing, and the time new waiters
+     *     may wait while it is
+     * @param queueDelayInterval the period over which the shortest queueing delay is compared to the target
+     * @param lifoThreshold the queueing delay after which a queue is served newest-first
+     * @param retryAfter the delay advertised to shed requests
+     */
+    public AdmissionQueue(
+            int maxConcurrent,
+            int maxQueueSize,
+            Duration maxQueueWait,
+            Duration queueDelayTarget,
+            Duration queueDelayInterval,
+            Duration lifoThreshold,
+            Duration retryAfter) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueueSize = maxQueueSize;
+        this.maxQueueWaitNanos = maxQueueWait.toNanos();
+        this.queueDelayTargetNanos = queueDelayTarget.toNanos();
+        this.queueDelayIntervalNanos = queueDelayInterval.toNanos();
+        this.lifoThresholdNanos = lifoThreshold.toNanos();
+        this.retryAfter = retryAfter;
+        for (RequestPriority priority : RequestPriority.values()) {
+            queues.put(priority, new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Acquires a slot for a request, waiting in the queue of its priority if none is free. Every successful call must
+     * be paired with a call to {@link #release()}.
+     *
+     * @param priority the priority class of the request
+     * @throws ServiceOverloadedException if the request is shed
+     */
+    public void acquire(RequestPriority priority) {
+        lock.lock();
+        try {
+            if (queued == 0 && inFlight < maxConcurrent) {
+                inFlight++;
+                recordQueueDelay(0, System.nanoTime());
+                return;
+            }
+            if (queued >= maxQueueSize) {
+                shedLowestPriorityWaiterBelow(priority);
+            }
+            Waiter waiter = new Waiter(priority, System.nanoTime(), lock.newCondition());
+            queues.get(priority).addLast(waiter);
+            queued++;
+            awaitSlot(waiter, overloaded ? Math.min(queueDelayTargetNanos, maxQueueWaitNanos) : maxQueueWaitNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Releases a slot previously obtained through {@link #acquire(RequestPriority)}, handing it to the next waiter. */
+    public void release() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            Waiter next = pollNextWaiter(now);
+            if (next == null) {
+                inFlight--;
+            } else {
+                recordQueueDelay(now - next.enqueuedAt, now);
+                next.state = WaiterState.GRANTED;
+                next.condition.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of requests currently admitted.
+     *
+     * @return the in-flight count
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of requests currently waiting for a slot.
+     *
+     * @return the queued count
+     */
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns whether the queue is currently considered standing, in which case new waiters are shed after
+     * {@code queueDelayTarget}.
+     *
+     * @return true if the shortest queueing delay of the last interval exceeded the target
+     */
+    public boolean isOverloaded() {
+        lock.lock();
+        try {
+            return overloaded;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitSlot(Waiter waiter, long maxWaitNanos) {
+        long remainingNanos = maxWaitNanos;
+        while (waiter.state == WaiterState.WAITING) {
+            if (remainingNanos <= 0) {
+                dequeue(waiter);
+                throw new ServiceOverloadedException(waiter.priority, retryAfter);
+            }
+            try {
+                remainingNanos = waiter.condition.awaitNanos(remainingNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (waiter.state == WaiterState.GRANTED) {
+                    release();
+                } else if (waiter.state == WaiterState.WAITING) {
+                    dequeue(waiter);
+                }
+                throw new ServiceOverloadedException(waiter.priority, retryAfter);
+            }
+        }
+        if (waiter.state == WaiterState.SHED) {
+            throw new ServiceOverloadedException(waiter.priority, retryAfter);
+        }
+    }
+
+    private void shedLowestPriorityWaiterBelow(RequestPriority priority) {
+        for (RequestPriority candidate : RequestPriority.values()) {
+            if (candidate.compareTo(priority) >= 0) {
+                break;
+            }
+            Waiter victim = queues.get(candidate).pollFirst();
+            if (victim != null) {
+                queued--;
+                victim.state = WaiterState.SHED;
+                victim.condition.signal();
+                return;
+            }
+        }
+        throw new ServiceOverloadedException(priority, retryAfter);
+    }
+
+    private void recordQueueDelay(long delayNanos, long now) {
+        minQueueDelayNanos = Math.min(minQueueDelayNanos, delayNanos);
+        if (now - intervalStartedAt >= queueDelayIntervalNanos) {
+            overloaded = minQueueDelayNanos > queueDelayTargetNanos;
+            minQueueDelayNanos = Long.MAX_VALUE;
+            intervalStartedAt = now;
+        }
+    }
+
+    private Waiter pollNextWaiter(long now) {
+        for (RequestPriority priority : HIGHEST_FIRST) {
+            Deque<Waiter> queue = queues.get(priority);
+            Waiter oldest = queue.peekFirst();
+            if (oldest != null) {
+                queued--;
+                return now - oldest.enqueuedAt >= lifoThresholdNanos ? queue.pollLast() : queue.pollFirst();
+            }
+        }
+        return null;
+    }
+
+    private void dequeue(Waiter waiter) {
+        if (queues.get(waiter.priority).remove(waiter)) {
+            queued--;
+        }
+    }
+
+    private enum WaiterState {
+        WAITING,
+        GRANTED,
+        SHED
+    }
+
+    private static final class Waiter {
+        private final RequestPriority priority;
+        private final long enqueuedAt;
+        private final Condition condition;
+        private WaiterState state = WaiterState.WAITING;
+
+        private Waiter(RequestPriority priority, long enqueuedAt, Condition condition) {
+            this.priority = priority;
+            this.enqueuedAt = enqueuedAt;
+            this.condition = condition;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.ps.error_handling.admission;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Priority classes used by admission control. When the node is overloaded, requests of a lower priority are shed before
+ * requests of a higher priority.
+ */
+public enum RequestPriority {
+    LOW,
+    NORMAL,
+    HIGH;
+
+    /**
+     * Parses a priority from its (case-insensitive) name.
+     *
+     * @param value the raw value, typically taken from a request header
+     * @return the matching priority, or an empty Optional if the value is blank or unknown
+     */
+    public static Optional<RequestPriority> parse(String value) {
+        if (value == null || value.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(valueOf(value.trim().toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+}
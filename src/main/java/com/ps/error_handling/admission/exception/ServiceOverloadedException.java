@@ -0,0 +1,45 @@
+package com.ps.error_handling.admission.exception;
+
+import java.time.Duration;
+
+import com.ps.error_handling.admission.RequestPriority;
+
+/**
+ * Exception thrown when a request is shed by admission control. This exception indicates that the node is overloaded
+ * and that the client should retry after the given delay.
+ */
+public class ServiceOverloadedException extends RuntimeException {
+
+    private final transient RequestPriority priority;
+    private final transient Duration retryAfter;
+
+    /**
+     * Constructs a new ServiceOverloadedException.
+     *
+     * @param priority the priority class of the shed request
+     * @param retryAfter the delay after which the client may retry
+     */
+    public ServiceOverloadedException(RequestPriority priority, Duration retryAfter) {
+        super("Request with priority " + priority + " shed by admission control");
+        this.priority = priority;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Returns the priority class of the shed request.
+     *
+     * @return the priority class
+     */
+    public RequestPriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Returns the delay after which the client may retry.
+     *
+     * @return the retry delay
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,51 @@
+package com.ps.error_handling.config;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import com.ps.error_handling.admission.RequestPriority;
+
+/**
+ * Configuration properties for inbound admission control on the report endpoint.
+ *
+ * @param enabled whether admission control is active
+ * @param maxConcurrent the maximum number of requests allowed in flight at the same time
+ * @param maxQueueSize the maximum number of requests waiting for a slot; beyond it, the lowest priority waiter is shed
+ * @param maxQueueWait the maximum time a request may wait for a slot before being shed
+ * @param queueDelayTarget the queueing delay above which the queue is considered standing; while it is, requests wait
+ *     at most this long
+ * @param queueDelayInterval the period over which the shortest queueing delay is compared to the target
+ * @param lifoThreshold the queueing delay after which a queue is considered stale and served newest-first
+ * @param retryAfter the delay advertised to shed clients in the {@code Retry-After} header
+ * @param priorityHeader the request header through which a client may lower the priority class of its request
+ * @param defaultPriority the priority class of callers without a configured one
+ * @param callerPriorities the highest priority class of each caller, keyed by caller identity (the authenticated remote
+ *     user)
+ */
+@ConfigurationProperties("admission-control")
+public record AdmissionControlProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("64") int maxConcurrent,
+        @DefaultValue("128") int maxQueueSize,
+        @DefaultValue("2s") Duration maxQueueWait,
+        @DefaultValue("50ms") Duration queueDelayTarget,
+        @DefaultValue("500ms") Duration queueDelayInterval,
+        @DefaultValue("500ms") Duration lifoThreshold,
+        @DefaultValue("1s") Duration retryAfter,
+        @DefaultValue("X-Request-Priority") String priorityHeader,
+        @DefaultValue("NORMAL") RequestPriority defaultPriority,
+        Map<String, RequestPriority> callerPriorities) {
+
+    public AdmissionControlProperties {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent must be at least 1");
+        }
+        if (maxQueueSize < 0) {
+            throw new IllegalArgumentException("maxQueueSize cannot be negative");
+        }
+        callerPriorities = callerPriorities == null ? Map.of() : Map.copyOf(callerPriorities);
+    }
+}
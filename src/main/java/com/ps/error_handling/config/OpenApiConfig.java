@@ -1,5 +1,6 @@
 package com.ps.error_handling.config;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -9,8 +10,10 @@ import io.swagger.v3.oas.models.info.Info;
 
 /**
  * Configuration class for OpenAPI documentation. This class configures the OpenAPI documentation for the application.
+ * It is skipped when OpenAPI generation is disabled through {@code springdoc.api-docs.enabled}.
  */
 @Configuration
+@ConditionalOnProperty(name = "springdoc.api-docs.enabled", matchIfMissing = true)
 public class OpenApiConfig {
 
     /**
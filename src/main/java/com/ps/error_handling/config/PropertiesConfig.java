@@ -0,0 +1,17 @@
+package com.ps.error_handling.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class registering the configuration properties records of the application. They are enabled here once,
+ * rather than on each bean consuming them, so that test slices only have to import this class.
+ */
+@Configuration
+@EnableConfigurationProperties({
+    AdmissionControlProperties.class,
+    ReportCacheProperties.class,
+    ReportStoreProperties.class,
+    ReportStreamingProperties.class
+})
+public class PropertiesConfig {}
@@ -0,0 +1,43 @@
+package com.ps.error_handling.config;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties for HTTP caching of report responses.
+ *
+ * @param defaultMaxAge the {@code max-age} of reports without a specific entry; when absent, clients must revalidate
+ *     every time
+ * @param maxAge the {@code max-age} of reports keyed by report name
+ * @param notFoundMaxAge the {@code max-age} of negative results (user or report name unknown to the report API); when
+ *     absent, these responses are not cacheable
+ */
+@ConfigurationProperties("report-cache")
+public record ReportCacheProperties(Duration defaultMaxAge, Map<String, Duration> maxAge, Duration notFoundMaxAge) {
+
+    public ReportCacheProperties {
+        maxAge = maxAge == null ? Map.of() : Map.copyOf(maxAge);
+    }
+
+    /**
+     * Returns the {@code max-age} configured for a report.
+     *
+     * @param reportName the name of the report
+     * @return the configured max-age, or an empty Optional if the report must always be revalidated
+     */
+    public Optional<Duration> maxAgeFor(String reportName) {
+        return Optional.ofNullable(maxAge.getOrDefault(reportName, defaultMaxAge));
+    }
+
+    /**
+     * Returns the {@code max-age} configured for negative results.
+     *
+     * @return the configured max-age, or an empty Optional if negative results are not cacheable
+     */
+    public Optional<Duration> maxAgeForNotFound() {
+        return Optional.ofNullable(notFoundMaxAge);
+    }
+}
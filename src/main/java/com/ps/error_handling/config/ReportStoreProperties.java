@@ -0,0 +1,36 @@
+package com.ps.error_handling.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Configuration properties for the persistent, memory-mapped report store.
+ *
+ * @param enabled whether reports are stored and served from the store
+ * @param path the base path of the file backing the store, which is written as numbered generations ({@code <path>.1},
+ *     {@code <path>.2}, ...), one per compaction, and locked through {@code <path>.lock}
+ * @param capacity the size of the memory-mapped file; the store is compacted when it is full
+ * @param expectedEntries the number of entries the off-heap index is initially sized for; it grows when exceeded
+ * @param ttl how long a stored report may be served
+ */
+@ConfigurationProperties("report-store")
+public record ReportStoreProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("data/report-store.dat") Path path,
+        @DefaultValue("64MB") DataSize capacity,
+        @DefaultValue("65536") int expectedEntries,
+        @DefaultValue("10m") Duration ttl) {
+
+    public ReportStoreProperties {
+        if (capacity.toBytes() < 1024 || capacity.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("capacity must be between 1KB and 2GB");
+        }
+        if (expectedEntries < 1) {
+            throw new IllegalArgumentException("expectedEntries must be at least 1");
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.ps.error_handling.config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.ps.error_handling.controller.StreamedReportReturnValueHandler;
+
+/**
+ * Configuration of the asynchronous request processing used to stream large reports. Streams are written by a dedicated
+ * pool of {@code report-streaming.writer-threads} threads instead of the shared application task executor, whose queue
+ * is unbounded, and may run for {@code report-streaming.timeout} instead of the container default, which is too short
+ * for multi-megabyte reports. Streamed reports are handed to that pool by the {@link StreamedReportReturnValueHandler}.
+ *
+ * <p>The pool is not exposed as a bean, as an executor bean would replace the application task executor. This
+ * configurer runs after the one of Spring Boot, so its settings take precedence.
+ */
+@Configuration
+public class ReportStreamingConfig implements WebMvcConfigurer, DisposableBean {
+
+    private final ReportStreamingProperties properties;
+    private final ThreadPoolTaskExecutor writerExecutor;
+
+    /**
+     * Constructs a new ReportStreamingConfig, starting the writer pool.
+     *
+     * @param properties the streaming configuration
+     */
+    public ReportStreamingConfig(ReportStreamingProperties properties) {
+        this.properties = properties;
+        this.writerExecutor = new ThreadPoolTaskExecutor();
+        writerExecutor.setCorePoolSize(properties.writerThreads());
+        writerExecutor.setMaxPoolSize(properties.writerThreads());
+        writerExecutor.setQueueCapacity(0);
+        writerExecutor.setThreadNamePrefix("report-writer-");
+        writerExecutor.initialize();
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(writerExecutor);
+        configurer.setDefaultTimeout(properties.timeout().toMillis());
+    }
+
+    @Override
+    public void addReturnValueHandlers(List<HandlerMethodReturnValueHandler> handlers) {
+        handlers.add(new StreamedReportReturnValueHandler());
+    }
+
+    /** Stops the writer pool. */
+    @Override
+    public void destroy() {
+        writerExecutor.shutdown();
+    }
+}
@@ -0,0 +1,39 @@
+package com.ps.error_handling.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Configuration properties for streaming report values.
+ *
+ * @param bufferThreshold the size up to which a report is buffered in the heap, which gives it an {@code ETag}, lets it
+ *     be stored and has it written on the request thread; larger reports, and reports of unknown size, are streamed
+ * @param writerThreads the number of threads writing streamed reports, which bounds the number of concurrent streams;
+ *     it should be at least {@code admission-control.max-concurrent}, as streams beyond it are rejected
+ * @param timeout how long a streamed report may take to be written before the response is aborted
+ */
+@ConfigurationProperties("report-streaming")
+public record ReportStreamingProperties(
+        @DefaultValue("256KB") DataSize bufferThreshold,
+        @DefaultValue("64") int writerThreads,
+        @DefaultValue("10m") Duration timeout) {
+
+    public ReportStreamingProperties {
+        if (writerThreads < 1) {
+            throw new IllegalArgumentException("writerThreads must be at least 1");
+        }
+    }
+
+    /**
+     * Tells whether a report is small enough to be buffered.
+     *
+     * @param size the size of the report in bytes, or -1 if unknown
+     * @return true if the report should be buffered, false if it should be streamed
+     */
+    public boolean isBuffered(long size) {
+        return size >= 0 && size <= bufferThreshold.toBytes();
+    }
+}
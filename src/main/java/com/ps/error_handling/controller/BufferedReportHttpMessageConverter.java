@@ -0,0 +1,49 @@
+package com.ps.error_handling.controller;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import com.ps.error_handling.model.Report;
+import com.ps.error_handling.model.ReportPayload;
+import com.ps.error_handling.model.ReportStream;
+
+/**
+ * Message converter writing a {@link ReportPayload.Buffered} as the JSON representation of a {@link Report}, through
+ * {@link ReportJsonWriter}, so that buffered reports are never decoded to a {@link String}. It is registered ahead of
+ * the Jackson converter by Spring Boot, and only supports writing.
+ */
+@Component
+public class BufferedReportHttpMessageConverter extends AbstractHttpMessageConverter<ReportPayload.Buffered> {
+
+    /** Constructs a new BufferedReportHttpMessageConverter, supporting {@code application/json}. */
+    public BufferedReportHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ReportPayload.Buffered.class == clazz;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected ReportPayload.Buffered readInternal(
+            Class<? extends ReportPayload.Buffered> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Buffered reports cannot be read", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(ReportPayload.Buffered buffered, HttpOutputMessage outputMessage) throws IOException {
+        ReportJsonWriter.write(ReportStream.of(buffered.value()), outputMessage.getBody());
+    }
+}
@@ -6,11 +6,16 @@ import java.net.URI;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import com.ps.error_handling.admission.exception.ServiceOverloadedException;
+import com.ps.error_handling.config.ReportCacheProperties;
 import com.ps.error_handling.service.exception.*;
 
 import jakarta.validation.ConstraintViolationException;
@@ -37,6 +42,19 @@ public class ErrorHandler {
             URI.create("https://api.error-handling.com/problems/validation-error");
     private static final URI ILLEGAL_ARGUMENT_TYPE =
             URI.create("https://api.error-handling.com/problems/illegal-argument");
+    private static final URI SERVICE_OVERLOADED_TYPE =
+            URI.create("https://api.error-handling.com/problems/service-overloaded");
+
+    private final ReportCacheProperties reportCacheProperties;
+
+    /**
+     * Constructs a new ErrorHandler.
+     *
+     * @param reportCacheProperties the HTTP caching configuration, used for negative results
+     */
+    public ErrorHandler(ReportCacheProperties reportCacheProperties) {
+        this.reportCacheProperties = reportCacheProperties;
+    }
 
     /**
      * Handles exceptions related to database access errors. This method is called when a
@@ -77,19 +95,20 @@ public class ErrorHandler {
     /**
      * Handles exceptions related to invalid report names. This method is called when a
      * {@link ReportNameNotFoundInReportApiException} is thrown. It returns a 400 Bad Request response with an error
-     * message indicating the report name is invalid.
+     * message indicating the report name is invalid. The response is made cacheable when a negative result
+     * {@code max-age} is configured.
      *
      * @param ex the exception that was thrown
      * @return a {@link ProblemDetail} with status code 400 and an error message about invalid report name
      */
     @ExceptionHandler(ReportNameNotFoundInReportApiException.class)
-    @ResponseStatus(BAD_REQUEST)
-    public ProblemDetail handleReportNameNotFoundInReportApiException(ReportNameNotFoundInReportApiException ex) {
+    public ResponseEntity<ProblemDetail> handleReportNameNotFoundInReportApiException(
+            ReportNameNotFoundInReportApiException ex) {
         logger.error("Invalid report name", ex);
         ProblemDetail problemDetail = ProblemDetail.forStatus(BAD_REQUEST);
         problemDetail.setType(INVALID_REPORT_NAME_TYPE);
         problemDetail.setDetail("Invalid Report name.");
-        return problemDetail;
+        return negativeResult(problemDetail);
     }
 
     /**
@@ -113,19 +132,19 @@ public class ErrorHandler {
     /**
      * Handles exceptions related to users not found in the report API. This method is called when a
      * {@link UserNotFoundInReportApiException} is thrown. It returns a 404 Not Found response with an error message
-     * indicating the report for the user was not found.
+     * indicating the report for the user was not found. The response is made cacheable when a negative result
+     * {@code max-age} is configured.
      *
      * @param ex the exception that was thrown
      * @return a {@link ProblemDetail} with status code 404 and an error message about report not found for user
      */
     @ExceptionHandler(UserNotFoundInReportApiException.class)
-    @ResponseStatus(NOT_FOUND)
-    public ProblemDetail handleUserNotFoundInReportApiException(UserNotFoundInReportApiException ex) {
+    public ResponseEntity<ProblemDetail> handleUserNotFoundInReportApiException(UserNotFoundInReportApiException ex) {
         logger.error("Report not found for user", ex);
         ProblemDetail problemDetail = ProblemDetail.forStatus(NOT_FOUND);
         problemDetail.setType(REPORT_NOT_FOUND_TYPE);
         problemDetail.setDetail("Report for given user not found.");
-        return problemDetail;
+        return negativeResult(problemDetail);
     }
 
     /**
@@ -161,4 +180,35 @@ public class ErrorHandler {
         problemDetail.setDetail("Invalid argument: " + ex.getMessage());
         return problemDetail;
     }
+
+    /**
+     * Handles requests shed by admission control. This method is called when a {@link ServiceOverloadedException} is
+     * thrown. It returns a 503 Service Unavailable response with a {@code Retry-After} header telling the client when
+     * to try again.
+     *
+     * @param ex the exception that was thrown
+     * @return a {@link ProblemDetail} with status code 503 and a {@code Retry-After} header
+     */
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ProblemDetail> handleServiceOverloadedException(ServiceOverloadedException ex) {
+        logger.warn("Request shed by admission control: {}", ex.getMessage());
+        ProblemDetail problemDetail = ProblemDetail.forStatus(SERVICE_UNAVAILABLE);
+        problemDetail.setType(SERVICE_OVERLOADED_TYPE);
+        problemDetail.setDetail("Service is overloaded, please retry later.");
+        return ResponseEntity.status(SERVICE_UNAVAILABLE)
+                .header(
+                        HttpHeaders.RETRY_AFTER,
+                        String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(problemDetail);
+    }
+
+    /**
+     * Wraps a negative result, adding a {@code Cache-Control: max-age} header when one is configured so that clients
+     * and CDNs do not keep asking for data known to be missing.
+     */
+    private ResponseEntity<ProblemDetail> negativeResult(ProblemDetail problemDetail) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(problemDetail.getStatus());
+        reportCacheProperties.maxAgeForNotFound().map(CacheControl::maxAge).ifPresent(builder::cacheControl);
+        return builder.body(problemDetail);
+    }
 }
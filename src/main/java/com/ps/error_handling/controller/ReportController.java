@@ -1,15 +1,22 @@
 package com.ps.error_handling.controller;
 
+import java.nio.ByteBuffer;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.ps.error_handling.config.ReportCacheProperties;
 import com.ps.error_handling.model.Report;
+import com.ps.error_handling.model.ReportPayload;
+import com.ps.error_handling.model.ReportStream;
 import com.ps.error_handling.model.User;
 import com.ps.error_handling.service.ReportService;
 import com.ps.error_handling.service.UserService;
@@ -26,6 +33,13 @@ import jakarta.validation.constraints.NotBlank;
 /**
  * Controller for handling report-related requests. This controller provides endpoints for retrieving reports based on
  * user ID and report name.
+ *
+ * <p>Reports are written straight to the response, without being materialized as a {@link Report}. Reports buffered by
+ * the {@link ReportService} are rendered by the {@link BufferedReportHttpMessageConverter} and carry an {@code ETag},
+ * so that polling clients can revalidate them with {@code If-None-Match} and get a 304 Not Modified without a body;
+ * larger reports are streamed from their {@link ReportStream} by the {@link StreamedReportReturnValueHandler}. Errors
+ * raised while opening a report are handled by the {@link ErrorHandler}; once streaming has started, a failure aborts
+ * the response.
  */
 @RestController
 @RequestMapping(
@@ -39,16 +53,20 @@ public class ReportController {
 
     private final ReportService reportService;
     private final UserService userService;
+    private final ReportCacheProperties reportCacheProperties;
 
     /**
      * Constructs a new ReportController with the specified services.
      *
      * @param reportService the service for retrieving reports
      * @param userService the service for retrieving users
+     * @param reportCacheProperties the HTTP caching configuration of reports
      */
-    public ReportController(ReportService reportService, UserService userService) {
+    public ReportController(
+            ReportService reportService, UserService userService, ReportCacheProperties reportCacheProperties) {
         this.reportService = reportService;
         this.userService = userService;
+        this.reportCacheProperties = reportCacheProperties;
     }
 
     /**
@@ -56,7 +74,7 @@ public class ReportController {
      *
      * @param userId the ID of the user requesting the report
      * @param reportName the name of the report to retrieve
-     * @return the requested report
+     * @return the buffered report with its {@code ETag}, or the streamed report
      */
     @Operation(summary = "Get a report", description = "Retrieves a report for a specific user and report name")
     @ApiResponses(
@@ -68,12 +86,13 @@ public class ReportController {
                                 @Content(
                                         mediaType = "application/json",
                                         schema = @Schema(implementation = Report.class))),
+                @ApiResponse(responseCode = "304", description = "Report not modified since the given ETag"),
                 @ApiResponse(responseCode = "400", description = "Invalid request parameters"),
                 @ApiResponse(responseCode = "404", description = "User or report not found"),
                 @ApiResponse(responseCode = "500", description = "Internal server error")
             })
     @GetMapping("/report")
-    public Report getReport(
+    public ResponseEntity<ReportPayload> getReport(
             @Parameter(description = "ID of the user requesting the report")
                     @RequestParam
                     @NotBlank(message = "User ID cannot be empty")
@@ -84,6 +103,34 @@ public class ReportController {
                     String reportName) {
         logger.info("Retrieving report for user {} and report name {}", userId, reportName);
         User user = userService.getUser(userId);
-        return reportService.getReport(user.email(), reportName);
+        ReportPayload report = reportService.openReport(user.email(), reportName);
+        ResponseEntity.BodyBuilder response =
+                ResponseEntity.ok().cacheControl(cacheControlFor(reportName)).contentType(MediaType.APPLICATION_JSON);
+        if (report instanceof ReportPayload.Buffered buffered) {
+            // Spring answers 304 Not Modified when the ETag matches If-None-Match
+            response.eTag(eTagOf(buffered.value()));
+        }
+        return response.body(report);
+    }
+
+    private CacheControl cacheControlFor(String reportName) {
+        return reportCacheProperties
+                .maxAgeFor(reportName)
+                .map(CacheControl::maxAge)
+                .orElseGet(CacheControl::noCache)
+                .cachePrivate();
+    }
+
+    /**
+     * Computes a strong ETag from the report value, using a 64-bit FNV-1a hash of its UTF-8 bytes. This is cheap enough
+     * to run on every request.
+     */
+    private static String eTagOf(ByteBuffer value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = value.position(); i < value.limit(); i++) {
+            hash ^= value.get(i) & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return "\"" + Long.toHexString(hash) + "\"";
     }
 }
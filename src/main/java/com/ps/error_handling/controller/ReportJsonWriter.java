@@ -0,0 +1,90 @@
+package com.ps.error_handling.controller;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import com.ps.error_handling.model.Report;
+import com.ps.error_handling.model.ReportStream;
+
+/**
+ * Writes a {@link ReportStream} as the JSON representation of a {@link Report}. The value is escaped on the fly, chunk
+ * by chunk, the same way Jackson escapes the materialized report: quotes, backslashes and control characters are
+ * escaped, everything else is written as is. The only difference is that characters outside the Basic Multilingual
+ * Plane are kept as 4-byte UTF-8 sequences, where Jackson writes them as escaped surrogate pairs; both decode to the
+ * same value.
+ */
+final class ReportJsonWriter {
+
+    private static final byte[] PREFIX = "{\"reportValue\":\"".getBytes(US_ASCII);
+    private static final byte[] SUFFIX = "\"}".getBytes(US_ASCII);
+    private static final byte[] HEX_DIGITS = "0123456789ABCDEF".getBytes(US_ASCII);
+    private static final int TRANSFER_BUFFER_SIZE = 8192;
+
+    private ReportJsonWriter() {}
+
+    /**
+     * Writes the JSON representation of a report. Chunks backed by an accessible array are written without being
+     * copied; the others (direct or read-only buffers) go through a small transfer buffer.
+     *
+     * @param report the report to write
+     * @param out the stream to write to
+     * @throws IOException if the report cannot be read or written
+     */
+    static void write(ReportStream report, OutputStream out) throws IOException {
+        out.write(PREFIX);
+        byte[] transferBuffer = null;
+        for (ByteBuffer chunk = report.nextChunk(); chunk != null; chunk = report.nextChunk()) {
+            if (chunk.hasArray()) {
+                int from = chunk.arrayOffset() + chunk.position();
+                writeEscaped(chunk.array(), from, from + chunk.remaining(), out);
+                continue;
+            }
+            if (transferBuffer == null) {
+                transferBuffer = new byte[TRANSFER_BUFFER_SIZE];
+            }
+            while (chunk.hasRemaining()) {
+                int length = Math.min(transferBuffer.length, chunk.remaining());
+                chunk.get(transferBuffer, 0, length);
+                writeEscaped(transferBuffer, 0, length, out);
+            }
+        }
+        out.write(SUFFIX);
+    }
+
+    /** Writes runs of bytes that need no escaping in bulk, and escapes the others one by one. */
+    private static void writeEscaped(byte[] bytes, int from, int to, OutputStream out) throws IOException {
+        int runStart = from;
+        for (int i = from; i < to; i++) {
+            int b = bytes[i] & 0xff;
+            if (b >= 0x20 && b != '"' && b != '\\') {
+                continue;
+            }
+            out.write(bytes, runStart, i - runStart);
+            writeEscape(b, out);
+            runStart = i + 1;
+        }
+        out.write(bytes, runStart, to - runStart);
+    }
+
+    private static void writeEscape(int b, OutputStream out) throws IOException {
+        out.write('\\');
+        switch (b) {
+            case '"', '\\' -> out.write(b);
+            case '\b' -> out.write('b');
+            case '\t' -> out.write('t');
+            case '\n' -> out.write('n');
+            case '\f' -> out.write('f');
+            case '\r' -> out.write('r');
+            default -> {
+                out.write('u');
+                out.write('0');
+                out.write('0');
+                out.write(HEX_DIGITS[b >> 4]);
+                out.write(HEX_DIGITS[b & 0xf]);
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.ps.error_handling.controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.method.support.AsyncHandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBodyReturnValueHandler;
+
+import com.ps.error_handling.model.ReportPayload;
+import com.ps.error_handling.model.ReportStream;
+
+/**
+ * Return value handler writing a {@link ReportPayload.Streamed} returned in a {@link ResponseEntity}. The report is
+ * written as a {@link StreamingResponseBody}, on the writer pool configured by {@code ReportStreamingConfig}, and is
+ * closed once the asynchronous processing of the request completes.
+ *
+ * <p>Streamed reports are told apart from buffered ones by the returned value, not by the declared return type, so the
+ * handler is only selected for streamed reports; buffered reports go through the regular {@link ResponseEntity}
+ * handling and the {@link BufferedReportHttpMessageConverter}.
+ */
+public class StreamedReportReturnValueHandler implements AsyncHandlerMethodReturnValueHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamedReportReturnValueHandler.class);
+
+    private final StreamingResponseBodyReturnValueHandler delegate = new StreamingResponseBodyReturnValueHandler();
+
+    @Override
+    public boolean isAsyncReturnValue(Object returnValue, MethodParameter returnType) {
+        return returnValue instanceof ResponseEntity<?> entity && entity.getBody() instanceof ReportPayload.Streamed;
+    }
+
+    @Override
+    public boolean supportsReturnType(MethodParameter returnType) {
+        return ResponseEntity.class.isAssignableFrom(returnType.getParameterType());
+    }
+
+    @Override
+    public void handleReturnValue(
+            Object returnValue,
+            MethodParameter returnType,
+            ModelAndViewContainer mavContainer,
+            NativeWebRequest webRequest)
+            throws Exception {
+        if (!(returnValue instanceof ResponseEntity<?> entity
+                && entity.getBody() instanceof ReportPayload.Streamed streamed)) {
+            throw new IllegalStateException("Expected a ResponseEntity holding a streamed report: " + returnValue);
+        }
+        ReportStream report = streamed.stream();
+        CloseReportOnCompletion closer = new CloseReportOnCompletion(report);
+        WebAsyncUtils.getAsyncManager(webRequest)
+                .registerCallableInterceptor(CloseReportOnCompletion.class.getName(), closer);
+        StreamingResponseBody body = out -> writeStreamedReport(report, closer, out);
+        delegate.handleReturnValue(
+                new ResponseEntity<>(body, entity.getHeaders(), entity.getStatusCode()),
+                returnType,
+                mavContainer,
+                webRequest);
+    }
+
+    /**
+     * Writes a streamed report to the response and closes it. The response may already be committed when the report
+     * fails, so the failure is rethrown as an {@link IOException} for the container to abort the response, rather than
+     * being rendered as a Problem Details body after a partial report.
+     */
+    private static void writeStreamedReport(ReportStream report, CloseReportOnCompletion closer, OutputStream out)
+            throws IOException {
+        try (closer) {
+            ReportJsonWriter.write(report, out);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Report streaming failed", e);
+            throw e instanceof IOException ioException ? ioException : new IOException(e);
+        }
+    }
+
+    /**
+     * Closes a streamed report once the asynchronous processing of its request completes. The writer closes the report
+     * as soon as it is written; this covers the cases where the writer never runs, because the writer pool rejected it
+     * or the request timed out or failed first, so that the connection to the report source is never leaked. The report
+     * is closed only once, whichever comes first.
+     */
+    private static final class CloseReportOnCompletion implements CallableProcessingInterceptor, Closeable {
+        private final ReportStream report;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private CloseReportOnCompletion(ReportStream report) {
+            this.report = report;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed.compareAndSet(false, true)) {
+                report.close();
+            }
+        }
+
+        @Override
+        public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+            try {
+                close();
+            } catch (IOException e) {
+                logger.warn("Could not close report stream", e);
+            }
+        }
+    }
+}
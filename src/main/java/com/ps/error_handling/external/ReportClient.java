@@ -7,24 +7,26 @@ import org.springframework.stereotype.Component;
 import com.ps.error_handling.external.exception.InvalidReportNameException;
 import com.ps.error_handling.external.exception.ReportForUserNotFoundException;
 import com.ps.error_handling.model.Report;
+import com.ps.error_handling.model.ReportStream;
 
 @Component
 public class ReportClient {
 
     /**
-     * Retrieves a report for a given user email and report name.
+     * Opens a report for a given user email and report name. Errors are reported when the report is opened, before any
+     * byte of its value is read; the value itself is then read chunk by chunk.
      *
      * @param email The email address of the user requesting the report
      * @param reportName The name of the requested report
-     * @return Report object containing the generated report data
+     * @return ReportStream over the generated report data
      * @throws InvalidReportNameException if the report name is invalid
      * @throws ReportForUserNotFoundException if no report is found for the user
      */
-    public Report getReport(String email, String reportName) {
+    public ReportStream openReport(String email, String reportName) {
         return switch (ThreadLocalRandom.current().nextInt(0, 10)) {
             case 0 -> throw new InvalidReportNameException();
             case 1 -> throw new ReportForUserNotFoundException();
-            default -> new Report("someReportValue for " + email + " and " + reportName);
+            default -> ReportStream.of(new Report("someReportValue for " + email + " and " + reportName));
         };
     }
 }
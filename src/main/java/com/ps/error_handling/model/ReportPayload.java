@@ -0,0 +1,35 @@
+package com.ps.error_handling.model;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Represents the value of a report as handed over to the controller: either buffered, when it is small enough to be
+ * held in memory, or streamed from its source.
+ */
+public sealed interface ReportPayload {
+
+    /**
+     * A report value read upfront, which can be hashed for an {@code ETag} before being written. The value is held and
+     * returned as duplicates of the given buffer, so that reading it never moves the position of another reader.
+     *
+     * @param value the UTF-8 encoded report value, read from its position to its limit
+     */
+    record Buffered(ByteBuffer value) implements ReportPayload {
+
+        public Buffered {
+            value = value.duplicate();
+        }
+
+        @Override
+        public ByteBuffer value() {
+            return value.duplicate();
+        }
+    }
+
+    /**
+     * A report value streamed from its source as it is written.
+     *
+     * @param stream the stream over the report value, to be closed once written
+     */
+    record Streamed(ReportStream stream) implements ReportPayload {}
+}
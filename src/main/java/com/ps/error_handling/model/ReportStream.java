@@ -0,0 +1,134 @@
+package com.ps.error_handling.model;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Represents a report whose value is read as a sequence of UTF-8 encoded chunks instead of being materialized as a
+ * {@link String}, so that large reports can be written to the response without being held in the heap. A stream can
+ * only be read once and must be closed afterwards.
+ */
+public interface ReportStream extends Closeable {
+
+    /**
+     * Returns the size of the UTF-8 encoded report value.
+     *
+     * @return the size in bytes, or -1 if it is not known upfront
+     */
+    long size();
+
+    /**
+     * Reads the next chunk of the UTF-8 encoded report value. The returned buffer is only valid until the next call.
+     *
+     * @return the next chunk, or null once the whole value has been read
+     * @throws IOException if the value cannot be read
+     */
+    ByteBuffer nextChunk() throws IOException;
+
+    /**
+     * Releases the resources held by the stream. Does nothing by default.
+     *
+     * @throws IOException if the resources cannot be released
+     */
+    @Override
+    default void close() throws IOException {}
+
+    /**
+     * Reads the remaining chunks into a single buffer. Only meant for reports known to be small.
+     *
+     * @return a buffer holding the remaining UTF-8 encoded report value, ready to be read
+     * @throws IOException if the value cannot be read
+     */
+    default ByteBuffer readAll() throws IOException {
+        ByteBuffer all = ByteBuffer.allocate((int) Math.max(size(), 0));
+        for (ByteBuffer chunk = nextChunk(); chunk != null; chunk = nextChunk()) {
+            if (all.remaining() < chunk.remaining()) {
+                ByteBuffer grown =
+                        ByteBuffer.allocate(Math.max(all.capacity() * 2, all.position() + chunk.remaining()));
+                all = grown.put(all.flip());
+            }
+            all.put(chunk);
+        }
+        return all.flip();
+    }
+
+    /**
+     * Reads the first chunk upfront, so that a source failing from the start is detected before anything is written.
+     * The returned stream yields that chunk first, then the remaining ones; closing it closes this stream.
+     *
+     * @return a stream over the same value, whose first chunk has already been read
+     * @throws IOException if the first chunk cannot be read
+     */
+    default ReportStream prefetchFirstChunk() throws IOException {
+        ReportStream source = this;
+        ByteBuffer firstChunk = nextChunk();
+        return new ReportStream() {
+            private boolean firstChunkRead;
+
+            @Override
+            public long size() {
+                return source.size();
+            }
+
+            @Override
+            public ByteBuffer nextChunk() throws IOException {
+                if (!firstChunkRead) {
+                    firstChunkRead = true;
+                    return firstChunk;
+                }
+                return source.nextChunk();
+            }
+
+            @Override
+            public void close() throws IOException {
+                source.close();
+            }
+        };
+    }
+
+    /**
+     * Creates a stream made of a single chunk, whose {@link #readAll()} returns the given value without copying it.
+     *
+     * @param value the UTF-8 encoded report value; it is read from its position to its limit
+     * @return a stream over the given value
+     */
+    static ReportStream of(ByteBuffer value) {
+        return new ReportStream() {
+            private boolean consumed;
+
+            @Override
+            public long size() {
+                return value.remaining();
+            }
+
+            @Override
+            public ByteBuffer nextChunk() {
+                if (consumed) {
+                    return null;
+                }
+                consumed = true;
+                return value.duplicate();
+            }
+
+            @Override
+            public ByteBuffer readAll() {
+                ByteBuffer chunk = nextChunk();
+                return chunk == null ? ByteBuffer.allocate(0) : chunk;
+            }
+        };
+    }
+
+    /**
+     * Creates a stream over a materialized report.
+     *
+     * @param report the report to stream
+     * @return a stream over the value of the report
+     */
+    static ReportStream of(Report report) {
+        String value = report.reportValue() == null ? "" : report.reportValue();
+        return of(ByteBuffer.wrap(value.getBytes(UTF_8)));
+    }
+}
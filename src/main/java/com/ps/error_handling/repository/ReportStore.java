@@ -0,0 +1,562 @@
+package com.ps.error_handling.repository;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Repository;
+
+import com.ps.error_handling.config.ReportStoreProperties;
+
+/**
+ * Persistent second-tier store for reports, backed by a memory-mapped, append-only file. Report values live in the
+ * mapped file and the index is kept in a direct buffer, so neither takes Java heap space, and a restarted node serves
+ * the reports stored before the restart.
+ *
+ * <p>The file is named after the configured path followed by a generation number ({@code report-store.dat.1}), and each
+ * compaction writes the next generation. A file is never replaced while it is mapped, which Windows does not allow, and
+ * readers still holding values of the previous generation keep reading valid data. On startup the latest generation is
+ * opened and the others are deleted.
+ *
+ * <p>The generations are only ever mapped by one process at a time: the store holds a lock on a {@code .lock} file next
+ * to them ({@code report-store.dat.lock}) for as long as it is open. A second process started on the same path, such as
+ * the new node of a rolling restart started before the old one stopped, runs without the store instead of appending to
+ * a file that the first process is reading from.
+ *
+ * <p>The file starts with a header (magic number and version) followed by records laid out as:
+ *
+ * <pre>
+ * int length | int crc32c | long expiresAtMillis | int keyLength | key | int valueLength | value
+ * </pre>
+ *
+ * where {@code length} and {@code crc32c} cover everything after the checksum. On startup the file is scanned up to the
+ * first invalid record, which may have been torn by a crash, and the index is rebuilt. The latest record of a key wins.
+ * When the file is full, it is compacted if that can make room: the latest unexpired record of each key is copied to a
+ * new generation, which is renamed into place once complete. Compaction only runs when the superseded records take
+ * enough space for the new one, or when a record has expired; a file full of live records drops new reports instead of
+ * being rewritten on every store.
+ *
+ * <p>The store is a cache: I/O errors and corrupt records are logged and treated as misses, never as failures.
+ */
+@Repository
+public class ReportStore implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportStore.class);
+
+    private static final int MAGIC = 0x52505453;
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int EXPIRES_AT_OFFSET = RECORD_HEADER_SIZE;
+    private static final int KEY_LENGTH_OFFSET = EXPIRES_AT_OFFSET + 8;
+    private static final int KEY_OFFSET = KEY_LENGTH_OFFSET + 4;
+
+    // Index slots: long key hash | int record offset, where offset 0 marks an empty slot
+    private static final int SLOT_SIZE = 12;
+    private static final int SLOT_OFFSET_POSITION = 8;
+
+    private final Path path;
+    private final Path directory;
+    private final String fileName;
+    private final int capacity;
+    private final int expectedEntries;
+    private final long ttlMillis;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private FileChannel lockChannel;
+    private long generation;
+    private FileChannel channel;
+    private MappedByteBuffer file;
+    private int writePosition;
+    private int supersededBytes;
+    private long earliestExpiresAt;
+    private int compactionCount;
+    private ByteBuffer index;
+    private int indexMask;
+    private int indexSize;
+
+    /**
+     * Constructs a new ReportStore, opening or creating its backing file. If the file cannot be opened, or is locked by
+     * another process, the store stays disabled and every lookup is a miss.
+     *
+     * @param properties the store configuration
+     */
+    public ReportStore(ReportStoreProperties properties) {
+        this.path = properties.path();
+        this.directory = path.toAbsolutePath().getParent();
+        this.fileName = String.valueOf(path.getFileName());
+        this.capacity = (int) properties.capacity().toBytes();
+        this.expectedEntries = properties.expectedEntries();
+        this.ttlMillis = properties.ttl().toMillis();
+        if (properties.enabled()) {
+            try {
+                if (lock()) {
+                    openFile();
+                    logger.info("Report store {} opened with {} entries", generationFile(generation), indexSize);
+                }
+            } catch (IOException e) {
+                logger.error("Could not open report store {}, running without it", path, e);
+                closeQuietly();
+                unlockQuietly();
+            }
+        }
+    }
+
+    /**
+     * Finds a stored report value that has not expired yet. The returned buffer is a read-only slice of the mapped
+     * file, so the value is not copied to the heap; records are never modified once written, so the slice stays valid
+     * while new reports are stored.
+     *
+     * @param email the email of the user the report belongs to
+     * @param reportName the name of the report
+     * @return the UTF-8 encoded report value, or an empty Optional if there is none or it expired
+     */
+    public Optional<ByteBuffer> find(String email, String reportName) {
+        byte[] key = key(email, reportName);
+        lock.readLock().lock();
+        try {
+            if (file == null) {
+                return Optional.empty();
+            }
+            int offset = index.getInt(findSlot(hash(key), key) * SLOT_SIZE + SLOT_OFFSET_POSITION);
+            if (offset == 0 || file.getLong(offset + EXPIRES_AT_OFFSET) <= System.currentTimeMillis()) {
+                return Optional.empty();
+            }
+            if (!isValidRecord(offset)) {
+                logger.warn("Corrupt record at offset {} of report store {}", offset, path);
+                return Optional.empty();
+            }
+            int valueLengthOffset = offset + KEY_OFFSET + key.length;
+            return Optional.of(file.slice(valueLengthOffset + 4, file.getInt(valueLengthOffset))
+                    .asReadOnlyBuffer());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stores a UTF-8 encoded report value, replacing any previous one for the same user and report name. The value is
+     * silently dropped if it does not fit in the store even after compaction.
+     *
+     * @param email the email of the user the report belongs to
+     * @param reportName the name of the report
+     * @param value the UTF-8 encoded report value, read from its position to its limit without being consumed
+     */
+    public void put(String email, String reportName, ByteBuffer value) {
+        byte[] key = key(email, reportName);
+        long recordSize = (long) KEY_OFFSET + key.length + 4 + value.remaining();
+        lock.writeLock().lock();
+        try {
+            if (file == null) {
+                return;
+            }
+            if (writePosition + recordSize > capacity) {
+                if (!canReclaim(writePosition + recordSize - capacity)) {
+                    logger.debug("Report store {} is full of live records, dropping report {}", path, reportName);
+                    return;
+                }
+                compact();
+                if (file == null || writePosition + recordSize > capacity) {
+                    logger.debug("Report {} for {} does not fit in report store {}", reportName, email, path);
+                    return;
+                }
+            }
+            int offset = writePosition;
+            int length = (int) recordSize - RECORD_HEADER_SIZE;
+            long expiresAt = System.currentTimeMillis() + ttlMillis;
+            file.putLong(offset + EXPIRES_AT_OFFSET, expiresAt);
+            file.putInt(offset + KEY_LENGTH_OFFSET, key.length);
+            file.put(offset + KEY_OFFSET, key);
+            file.putInt(offset + KEY_OFFSET + key.length, value.remaining());
+            file.put(offset + KEY_OFFSET + key.length + 4, value, value.position(), value.remaining());
+            file.putInt(offset + 4, checksum(file, offset + RECORD_HEADER_SIZE, length));
+            file.putInt(offset, length);
+            writePosition += (int) recordSize;
+            if (writePosition + 4 <= capacity) {
+                // Stops the startup scan here, whatever a torn write may have left behind
+                file.putInt(writePosition, 0);
+            }
+            indexPut(hash(key), key, offset);
+            earliestExpiresAt = Math.min(earliestExpiresAt, expiresAt);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of keys currently indexed, including expired ones not compacted yet.
+     *
+     * @return the number of indexed keys
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return indexSize;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of compactions run since the store was opened.
+     *
+     * @return the compaction count
+     */
+    int getCompactionCount() {
+        lock.readLock().lock();
+        try {
+            return compactionCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Flushes the mapped file to disk, closes it and releases the lock on the store. */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (file != null) {
+                file.force();
+            }
+            closeQuietly();
+            unlockQuietly();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Locks the store against other processes. The lock file is left in place when the store is closed, as deleting it
+     * would let two processes lock different files.
+     *
+     * @return true if the lock was acquired, false if another process, or another store of this process, holds it
+     */
+    private boolean lock() throws IOException {
+        Files.createDirectories(directory);
+        Path lockFile = directory.resolve(fileName + ".lock");
+        lockChannel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock fileLock;
+        try {
+            fileLock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            fileLock = null;
+        }
+        if (fileLock == null) {
+            logger.warn("Report store {} is locked by another process, running without it", lockFile);
+            unlockQuietly();
+            return false;
+        }
+        return true;
+    }
+
+    /** Opens the latest generation of the file, creating the first one if there is none, and deletes the others. */
+    private void openFile() throws IOException {
+        long latest = 1;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, this::isStoreFile)) {
+            for (Path candidate : files) {
+                latest = Math.max(latest, generationOf(String.valueOf(candidate.getFileName())));
+            }
+        }
+        openGeneration(latest);
+        deleteOtherGenerations();
+    }
+
+    private void openGeneration(long generation) throws IOException {
+        this.generation = generation;
+        channel = FileChannel.open(
+                generationFile(generation),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        file = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        if (file.getInt(0) != MAGIC || file.getInt(4) != VERSION) {
+            file.putInt(0, MAGIC);
+            file.putInt(4, VERSION);
+            file.putInt(FILE_HEADER_SIZE, 0);
+        }
+        rebuildIndex();
+    }
+
+    /**
+     * Scans the file from the start, indexing every valid record and stopping at the first invalid one, where the next
+     * record will be appended.
+     */
+    private void rebuildIndex() {
+        allocateIndex(expectedEntries);
+        supersededBytes = 0;
+        earliestExpiresAt = Long.MAX_VALUE;
+        int offset = FILE_HEADER_SIZE;
+        while (isValidRecord(offset)) {
+            byte[] key = new byte[file.getInt(offset + KEY_LENGTH_OFFSET)];
+            file.get(offset + KEY_OFFSET, key);
+            indexPut(hash(key), key, offset);
+            earliestExpiresAt = Math.min(earliestExpiresAt, file.getLong(offset + EXPIRES_AT_OFFSET));
+            offset += RECORD_HEADER_SIZE + file.getInt(offset);
+        }
+        writePosition = offset;
+    }
+
+    /**
+     * Tells whether compacting the file can free the given number of bytes: either the superseded records take at least
+     * that much space, or a record has expired since the last compaction. The earliest expiry also counts superseded
+     * records, so it may trigger a compaction that frees less than expected, but never more than once per record.
+     */
+    private boolean canReclaim(long missingBytes) {
+        return supersededBytes >= missingBytes || earliestExpiresAt <= System.currentTimeMillis();
+    }
+
+    /** Checks that a record lies within the file, that its checksum matches, and that its key and value fit in it. */
+    private boolean isValidRecord(int offset) {
+        if (offset > capacity - KEY_OFFSET) {
+            return false;
+        }
+        int length = file.getInt(offset);
+        if (length < KEY_OFFSET - RECORD_HEADER_SIZE + 4
+                || length > capacity - offset - RECORD_HEADER_SIZE
+                || file.getInt(offset + 4) != checksum(file, offset + RECORD_HEADER_SIZE, length)) {
+            return false;
+        }
+        int keyLength = file.getInt(offset + KEY_LENGTH_OFFSET);
+        int valueLengthOffset = offset + KEY_OFFSET + keyLength;
+        return keyLength >= 0
+                && keyLength <= length - (KEY_OFFSET - RECORD_HEADER_SIZE + 4)
+                && file.getInt(valueLengthOffset) == length - (KEY_OFFSET - RECORD_HEADER_SIZE + 4) - keyLength;
+    }
+
+    /**
+     * Writes the latest unexpired record of each key to the next generation of the file, then switches to it. The new
+     * generation is written through a temporary file renamed once complete, so a crash never leaves a partial
+     * generation behind; the previous generation is deleted afterwards.
+     */
+    private void compact() {
+        long nextGeneration = generation + 1;
+        Path target = generationFile(nextGeneration);
+        Path temporary = directory.resolve(fileName + "." + nextGeneration + ".tmp");
+        Path previous = generationFile(generation);
+        long now = System.currentTimeMillis();
+        int before = indexSize;
+        try {
+            try (FileChannel out = FileChannel.open(
+                    temporary,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE)) {
+                writeFully(
+                        out,
+                        ByteBuffer.allocate(FILE_HEADER_SIZE)
+                                .putInt(MAGIC)
+                                .putInt(VERSION)
+                                .flip(),
+                        0);
+                int targetOffset = FILE_HEADER_SIZE;
+                for (int slot = 0; slot <= indexMask; slot++) {
+                    int offset = index.getInt(slot * SLOT_SIZE + SLOT_OFFSET_POSITION);
+                    if (offset != 0 && file.getLong(offset + EXPIRES_AT_OFFSET) > now) {
+                        int recordSize = RECORD_HEADER_SIZE + file.getInt(offset);
+                        writeFully(out, file.slice(offset, recordSize), targetOffset);
+                        targetOffset += recordSize;
+                    }
+                }
+                if (targetOffset + 4 <= capacity) {
+                    writeFully(out, ByteBuffer.allocate(4), targetOffset);
+                }
+                out.force(true);
+            }
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+            closeQuietly();
+            openGeneration(nextGeneration);
+            compactionCount++;
+            logger.info("Compacted report store {} from {} to {} entries", target, before, indexSize);
+        } catch (IOException e) {
+            logger.error("Could not compact report store {}, running without it", path, e);
+            closeQuietly();
+            return;
+        }
+        deleteQuietly(previous);
+    }
+
+    /**
+     * Deletes the generations other than the current one, and temporary files left by an interrupted compaction. This
+     * catches up on generations that could not be deleted while they were still mapped.
+     */
+    private void deleteOtherGenerations() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, this::isStoreFile)) {
+            for (Path candidate : files) {
+                if (generationOf(String.valueOf(candidate.getFileName())) != generation) {
+                    deleteQuietly(candidate);
+                }
+            }
+        }
+    }
+
+    private void deleteQuietly(Path target) {
+        try {
+            Files.deleteIfExists(target);
+        } catch (IOException e) {
+            logger.debug("Could not delete {}, it will be deleted on next startup", target, e);
+        }
+    }
+
+    /** Tells whether a file is a generation of the store, or the temporary file of one. */
+    private boolean isStoreFile(Path candidate) {
+        String name = String.valueOf(candidate.getFileName());
+        return generationOf(name.endsWith(".tmp") ? name.substring(0, name.length() - 4) : name) >= 0;
+    }
+
+    /** Returns the generation number of a store file, or -1 if the file is not a generation of the store. */
+    private long generationOf(String name) {
+        String prefix = fileName + ".";
+        if (!name.startsWith(prefix)) {
+            return -1;
+        }
+        String suffix = name.substring(prefix.length());
+        if (suffix.isEmpty() || suffix.length() > 18 || !suffix.chars().allMatch(c -> c >= '0' && c <= '9')) {
+            return -1;
+        }
+        return Long.parseLong(suffix);
+    }
+
+    private Path generationFile(long generation) {
+        return directory.resolve(fileName + "." + generation);
+    }
+
+    private void allocateIndex(int entries) {
+        int slots = Integer.highestOneBit(Math.max(entries, 2) * 2 - 1) << 1;
+        index = ByteBuffer.allocateDirect(slots * SLOT_SIZE);
+        indexMask = slots - 1;
+        indexSize = 0;
+    }
+
+    private void indexPut(long hash, byte[] key, int offset) {
+        int slot = findSlot(hash, key);
+        int slotPosition = slot * SLOT_SIZE;
+        int previousOffset = index.getInt(slotPosition + SLOT_OFFSET_POSITION);
+        if (previousOffset == 0) {
+            indexSize++;
+        } else {
+            supersededBytes += RECORD_HEADER_SIZE + file.getInt(previousOffset);
+        }
+        index.putLong(slotPosition, hash);
+        index.putInt(slotPosition + SLOT_OFFSET_POSITION, offset);
+        if (indexSize > (indexMask + 1) * 3 / 4) {
+            growIndex();
+        }
+    }
+
+    /** Doubles the index. Keys are distinct, so each entry goes to the first free slot of its probe sequence. */
+    private void growIndex() {
+        ByteBuffer previous = index;
+        int previousSlots = indexMask + 1;
+        index = ByteBuffer.allocateDirect(previousSlots * 2 * SLOT_SIZE);
+        indexMask = previousSlots * 2 - 1;
+        for (int slot = 0; slot < previousSlots; slot++) {
+            int offset = previous.getInt(slot * SLOT_SIZE + SLOT_OFFSET_POSITION);
+            if (offset != 0) {
+                long hash = previous.getLong(slot * SLOT_SIZE);
+                int target = (int) (hash ^ (hash >>> 32)) & indexMask;
+                while (index.getInt(target * SLOT_SIZE + SLOT_OFFSET_POSITION) != 0) {
+                    target = (target + 1) & indexMask;
+                }
+                index.putLong(target * SLOT_SIZE, hash);
+                index.putInt(target * SLOT_SIZE + SLOT_OFFSET_POSITION, offset);
+            }
+        }
+    }
+
+    /**
+     * Returns the slot holding the given key, or the empty slot where it would be inserted, using linear probing. Hash
+     * matches are confirmed by comparing the key stored in the record.
+     */
+    private int findSlot(long hash, byte[] key) {
+        int slot = (int) (hash ^ (hash >>> 32)) & indexMask;
+        while (true) {
+            int offset = index.getInt(slot * SLOT_SIZE + SLOT_OFFSET_POSITION);
+            if (offset == 0 || (index.getLong(slot * SLOT_SIZE) == hash && keyMatches(offset, key))) {
+                return slot;
+            }
+            slot = (slot + 1) & indexMask;
+        }
+    }
+
+    private boolean keyMatches(int offset, byte[] key) {
+        if (file.getInt(offset + KEY_LENGTH_OFFSET) != key.length) {
+            return false;
+        }
+        return file.slice(offset + KEY_OFFSET, key.length).equals(ByteBuffer.wrap(key));
+    }
+
+    private void closeQuietly() {
+        file = null;
+        index = null;
+        indexSize = 0;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warn("Could not close report store {}", path, e);
+            }
+            channel = null;
+        }
+    }
+
+    /** Releases the lock on the store by closing the lock file, if it is open. */
+    private void unlockQuietly() {
+        if (lockChannel != null) {
+            try {
+                lockChannel.close();
+            } catch (IOException e) {
+                logger.warn("Could not release the lock on report store {}", path, e);
+            }
+            lockChannel = null;
+        }
+    }
+
+    private static byte[] key(String email, String reportName) {
+        byte[] emailBytes = email.getBytes(UTF_8);
+        byte[] reportNameBytes = reportName.getBytes(UTF_8);
+        return ByteBuffer.allocate(4 + emailBytes.length + reportNameBytes.length)
+                .putInt(emailBytes.length)
+                .put(emailBytes)
+                .put(reportNameBytes)
+                .array();
+    }
+
+    /** 64-bit FNV-1a hash of the key. */
+    private static long hash(byte[] key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+}
@@ -1,21 +1,27 @@
 package com.ps.error_handling.service;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Optional;
 import java.util.regex.Pattern;
 
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import com.ps.error_handling.config.ReportStreamingProperties;
 import com.ps.error_handling.external.ReportClient;
 import com.ps.error_handling.external.exception.InvalidReportNameException;
 import com.ps.error_handling.external.exception.ReportForUserNotFoundException;
-import com.ps.error_handling.model.Report;
+import com.ps.error_handling.model.ReportPayload;
+import com.ps.error_handling.model.ReportStream;
+import com.ps.error_handling.repository.ReportStore;
 import com.ps.error_handling.service.exception.ReportClientUnexpectedException;
 import com.ps.error_handling.service.exception.ReportNameNotFoundInReportApiException;
 import com.ps.error_handling.service.exception.UserNotFoundInReportApiException;
 
 /**
  * Service for handling report-related operations. This service provides methods for retrieving reports using the
- * external report client.
+ * external report client, serving them from the persistent {@link ReportStore} when possible.
  */
 @Service
 public class ReportService {
@@ -24,28 +30,39 @@ public class ReportService {
             Pattern.compile("^[a-zA-Z0-9_+&*-]+(?:\\.[a-zA-Z0-9_+&*-]+)*@(?:[a-zA-Z0-9-]+\\.)+[a-zA-Z]{2,7}$");
 
     private final ReportClient reportClient;
+    private final ReportStore reportStore;
+    private final ReportStreamingProperties reportStreamingProperties;
 
     /**
-     * Constructs a new ReportService with the specified client.
+     * Constructs a new ReportService with the specified client and store.
      *
      * @param reportClient the client for accessing external report data
+     * @param reportStore the store consulted before the report client
+     * @param reportStreamingProperties the streaming configuration, telling which reports are small enough to store
      */
-    public ReportService(ReportClient reportClient) {
+    public ReportService(
+            ReportClient reportClient, ReportStore reportStore, ReportStreamingProperties reportStreamingProperties) {
         this.reportClient = reportClient;
+        this.reportStore = reportStore;
+        this.reportStreamingProperties = reportStreamingProperties;
     }
 
     /**
-     * Retrieves a report for a specific user email and report name.
+     * Opens a report for a specific user email and report name. Reports found in the store are served without calling
+     * the report client. Reports retrieved from the report client up to {@code report-streaming.buffer-threshold} are
+     * read upfront and added to the store, while larger ones are returned as they come, to be streamed to the caller.
+     * Either way, errors from the report client are reported here, before any byte of the report is handed over: the
+     * first chunk of a streamed report is read upfront, as a failing source most often fails on its first read.
      *
      * @param email the email of the user requesting the report
      * @param reportName the name of the report to retrieve
-     * @return the requested report
+     * @return the buffered report value, or a stream over it to be closed by the caller
      * @throws IllegalArgumentException if email or reportName is null or empty, or if email format is invalid
      * @throws ReportNameNotFoundInReportApiException if the report name is invalid
      * @throws UserNotFoundInReportApiException if no report is found for the user
      * @throws ReportClientUnexpectedException if there is an unexpected error from the report client
      */
-    public Report getReport(String email, String reportName) {
+    public ReportPayload openReport(String email, String reportName) {
         if (!StringUtils.hasText(email)) {
             throw new IllegalArgumentException("Email cannot be null or empty");
         }
@@ -58,8 +75,17 @@ public class ReportService {
             throw new IllegalArgumentException("Report name cannot be null or empty");
         }
 
+        Optional<ByteBuffer> storedValue = reportStore.find(email, reportName);
+        if (storedValue.isPresent()) {
+            return new ReportPayload.Buffered(storedValue.get());
+        }
+
+        ReportStream report;
         try {
-            return reportClient.getReport(email, reportName);
+            report = reportClient.openReport(email, reportName);
+            if (!reportStreamingProperties.isBuffered(report.size())) {
+                return new ReportPayload.Streamed(prefetchFirstChunk(report));
+            }
         } catch (InvalidReportNameException e) {
             throw new ReportNameNotFoundInReportApiException();
         } catch (ReportForUserNotFoundException e) {
@@ -67,5 +93,28 @@ public class ReportService {
         } catch (Exception e) {
             throw new ReportClientUnexpectedException(e);
         }
+
+        ByteBuffer value;
+        try (report) {
+            value = report.readAll();
+        } catch (IOException e) {
+            throw new ReportClientUnexpectedException(e);
+        }
+        reportStore.put(email, reportName, value);
+        return new ReportPayload.Buffered(value);
+    }
+
+    /** Reads the first chunk of a streamed report, closing the report if that fails. */
+    private static ReportStream prefetchFirstChunk(ReportStream report) throws IOException {
+        try {
+            return report.prefetchFirstChunk();
+        } catch (IOException | RuntimeException e) {
+            try {
+                report.close();
+            } catch (IOException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            throw e;
+        }
     }
 }
@@ -0,0 +1,179 @@
+package com.ps.error_handling.admission;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.ps.error_handling.config.AdmissionControlProperties;
+import com.ps.error_handling.config.PropertiesConfig;
+import com.ps.error_handling.controller.ReportController;
+import com.ps.error_handling.model.Report;
+import com.ps.error_handling.model.ReportPayload;
+import com.ps.error_handling.model.ReportStream;
+import com.ps.error_handling.model.User;
+import com.ps.error_handling.service.ReportService;
+import com.ps.error_handling.service.UserService;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+@WebMvcTest(
+        value = ReportController.class,
+        properties = {
+            "admission-control.max-concurrent=1",
+            "admission-control.max-queue-size=0",
+            "admission-control.caller-priorities.batch=LOW",
+            "admission-control.caller-priorities.ops=HIGH"
+        })
+@Import({AdmissionControlFilterTest.TestConfig.class, PropertiesConfig.class})
+public class AdmissionControlFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AdmissionControlFilter admissionControlFilter;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private UserService userService;
+
+    // Test configuration to provide mock beans
+    static class TestConfig {
+        @Bean
+        @Primary
+        public ReportService reportService() {
+            return Mockito.mock(ReportService.class);
+        }
+
+        @Bean
+        @Primary
+        public UserService userService() {
+            return Mockito.mock(UserService.class);
+        }
+    }
+
+    private static final String VALID_USER_ID = "user123";
+    private static final String VALID_EMAIL = "user@example.com";
+    private static final String VALID_REPORT_NAME = "sales-report";
+    private static final String REPORT_VALUE = "Report data";
+
+    @BeforeEach
+    void setUp() {
+        // Reset mocks before each test
+        Mockito.reset(userService, reportService);
+    }
+
+    @Test
+    void getReport_WhenSlotIsTaken_ShedsRequestUntilItIsReleased() throws Exception {
+        // Set up mocks for this test: the first report is streamed, which keeps its request in flight until completed
+        User user = new User(VALID_USER_ID, VALID_EMAIL);
+        when(userService.getUser(VALID_USER_ID)).thenReturn(user);
+        when(reportService.openReport(VALID_EMAIL, VALID_REPORT_NAME))
+                .thenReturn(
+                        new ReportPayload.Streamed(ReportStream.of(new Report(REPORT_VALUE))),
+                        new ReportPayload.Buffered(ByteBuffer.wrap(REPORT_VALUE.getBytes(UTF_8))));
+
+        MvcResult inFlight = mockMvc.perform(reportRequest())
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(reportRequest())
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.detail").value("Service is overloaded, please retry later."));
+
+        // Completing the first request releases its slot
+        mockMvc.perform(asyncDispatch(inFlight)).andExpect(status().isOk());
+
+        mockMvc.perform(reportRequest())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reportValue").value(REPORT_VALUE));
+    }
+
+    @Test
+    void doFilter_WhenNoResolverHandlesShedRequest_ReturnsServiceUnavailable() throws Exception {
+        AdmissionControlFilter filter = new AdmissionControlFilter(
+                new AdmissionControlProperties(
+                        true,
+                        1,
+                        0,
+                        Duration.ofSeconds(2),
+                        Duration.ofMillis(50),
+                        Duration.ofMillis(500),
+                        Duration.ofMillis(500),
+                        Duration.ofSeconds(3),
+                        "X-Request-Priority",
+                        RequestPriority.NORMAL,
+                        Map.of()),
+                (request, response, handler, ex) -> null);
+
+        // The first request stays in flight until its asynchronous processing completes
+        MockHttpServletRequest inFlight = new MockHttpServletRequest("GET", "/v1/report");
+        inFlight.setAsyncSupported(true);
+        filter.doFilter(inFlight, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+
+        MockHttpServletResponse shed = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/v1/report"), shed, new MockFilterChain());
+
+        assertEquals(HttpServletResponse.SC_SERVICE_UNAVAILABLE, shed.getStatus());
+        assertEquals("3", shed.getHeader(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void resolvePriority_WithoutCallerPriority_UsesDefaultPriorityAsCeiling() {
+        assertEquals(RequestPriority.NORMAL, admissionControlFilter.resolvePriority(priorityRequest(null, null)));
+        assertEquals(RequestPriority.LOW, admissionControlFilter.resolvePriority(priorityRequest(null, "low")));
+        assertEquals(RequestPriority.NORMAL, admissionControlFilter.resolvePriority(priorityRequest(null, "HIGH")));
+        assertEquals(RequestPriority.NORMAL, admissionControlFilter.resolvePriority(priorityRequest(null, "urgent")));
+    }
+
+    @Test
+    void resolvePriority_WithCallerPriority_OnlyLetsHeaderLowerIt() {
+        assertEquals(RequestPriority.LOW, admissionControlFilter.resolvePriority(priorityRequest("batch", "HIGH")));
+        assertEquals(RequestPriority.HIGH, admissionControlFilter.resolvePriority(priorityRequest("ops", null)));
+        assertEquals(RequestPriority.NORMAL, admissionControlFilter.resolvePriority(priorityRequest("ops", "NORMAL")));
+    }
+
+    private static MockHttpServletRequestBuilder reportRequest() {
+        return get("/v1/report")
+                .param("userId", VALID_USER_ID)
+                .param("reportName", VALID_REPORT_NAME)
+                .accept(MediaType.APPLICATION_JSON);
+    }
+
+    private static MockHttpServletRequest priorityRequest(String caller, String priorityHeader) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/report");
+        request.setRemoteUser(caller);
+        if (priorityHeader != null) {
+            request.addHeader("X-Request-Priority", priorityHeader);
+        }
+        return request;
+    }
+}
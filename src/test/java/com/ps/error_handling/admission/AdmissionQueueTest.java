@@ -0,0 +1,197 @@
+package com.ps.error_handling.admission;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.ps.error_handling.admission.exception.ServiceOverloadedException;
+
+public class AdmissionQueueTest {
+
+    private static final Duration LONG_WAIT = Duration.ofSeconds(10);
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(3);
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void acquire_WhenSlotsAndQueueAreFull_ShedsRequest() {
+        AdmissionQueue queue = new AdmissionQueue(1, 0, LONG_WAIT, LONG_WAIT, LONG_WAIT, LONG_WAIT, RETRY_AFTER);
+        queue.acquire(RequestPriority.NORMAL);
+
+        ServiceOverloadedException ex =
+                assertThrows(ServiceOverloadedException.class, () -> queue.acquire(RequestPriority.HIGH));
+        assertEquals(RequestPriority.HIGH, ex.getPriority());
+        assertEquals(RETRY_AFTER, ex.getRetryAfter());
+        assertEquals(1, queue.getInFlight());
+    }
+
+    @Test
+    void release_WithQueuedRequest_HandsSlotOver() throws Exception {
+        AdmissionQueue queue = new AdmissionQueue(1, 1, LONG_WAIT, LONG_WAIT, LONG_WAIT, LONG_WAIT, RETRY_AFTER);
+        queue.acquire(RequestPriority.NORMAL);
+
+        CompletableFuture<Void> waiter =
+                CompletableFuture.runAsync(() -> queue.acquire(RequestPriority.NORMAL), executor);
+        awaitQueued(queue, 1);
+        queue.release();
+
+        waiter.get(5, TimeUnit.SECONDS);
+        assertEquals(1, queue.getInFlight());
+        assertEquals(0, queue.getQueued());
+        queue.release();
+        assertEquals(0, queue.getInFlight());
+    }
+
+    @Test
+    void acquire_WhenQueueIsFull_ShedsLowestPriorityWaiter() throws Exception {
+        AdmissionQueue queue = new AdmissionQueue(1, 1, LONG_WAIT, LONG_WAIT, LONG_WAIT, LONG_WAIT, RETRY_AFTER);
+        queue.acquire(RequestPriority.NORMAL);
+
+        CompletableFuture<Void> low = CompletableFuture.runAsync(() -> queue.acquire(RequestPriority.LOW), executor);
+        awaitQueued(queue, 1);
+        CompletableFuture<Void> high = CompletableFuture.runAsync(() -> queue.acquire(RequestPriority.HIGH), executor);
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> low.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(ServiceOverloadedException.class, ex.getCause());
+
+        queue.release();
+        high.get(5, TimeUnit.SECONDS);
+        assertEquals(1, queue.getInFlight());
+    }
+
+    @Test
+    void acquire_WhenQueueIsFullOfHigherPriority_ShedsArrival() throws Exception {
+        AdmissionQueue queue = new AdmissionQueue(1, 1, LONG_WAIT, LONG_WAIT, LONG_WAIT, LONG_WAIT, RETRY_AFTER);
+        queue.acquire(RequestPriority.NORMAL);
+
+        CompletableFuture<Void> high = CompletableFuture.runAsync(() -> queue.acquire(RequestPriority.HIGH), executor);
+        awaitQueued(queue, 1);
+
+        assertThrows(ServiceOverloadedException.class, () -> queue.acquire(RequestPriority.LOW));
+        queue.release();
+        high.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void acquire_WhenWaitingTooLong_ShedsRequest() {
+        AdmissionQueue queue =
+                new AdmissionQueue(1, 1, Duration.ofMillis(50), LONG_WAIT, LONG_WAIT, LONG_WAIT, RETRY_AFTER);
+        queue.acquire(RequestPriority.NORMAL);
+
+        assertThrows(ServiceOverloadedException.class, () -> queue.acquire(RequestPriority.NORMAL));
+        assertEquals(0, queue.getQueued());
+        assertEquals(1, queue.getInFlight());
+    }
+
+    @Test
+    void acquire_WhenQueueDelayStaysAboveTarget_ShedsAfterTarget() throws Exception {
+        AdmissionQueue queue = new AdmissionQueue(
+                1, 2, LONG_WAIT, Duration.ofMillis(50), Duration.ofMillis(100), LONG_WAIT, RETRY_AFTER);
+        queue.acquire(RequestPriority.NORMAL);
+
+        CompletableFuture<Void> first =
+                CompletableFuture.runAsync(() -> queue.acquire(RequestPriority.NORMAL), executor);
+        awaitQueued(queue, 1);
+        CompletableFuture<Void> second =
+                CompletableFuture.runAsync(() -> queue.acquire(RequestPriority.NORMAL), executor);
+        awaitQueued(queue, 2);
+
+        // The first interval still saw a request admitted without waiting
+        Thread.sleep(150);
+        queue.release();
+        first.get(5, TimeUnit.SECONDS);
+        assertFalse(queue.isOverloaded());
+
+        // The second one only saw a request admitted after waiting longer than the target
+        Thread.sleep(150);
+        queue.release();
+        second.get(5, TimeUnit.SECONDS);
+        assertTrue(queue.isOverloaded());
+
+        long startedAt = System.nanoTime();
+        assertThrows(ServiceOverloadedException.class, () -> queue.acquire(RequestPriority.NORMAL));
+        assertTrue(System.nanoTime() - startedAt < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(0, queue.getQueued());
+    }
+
+    @Test
+    void release_ServesHigherPriorityFirst() throws Exception {
+        AdmissionQueue queue = new AdmissionQueue(1, 2, LONG_WAIT, LONG_WAIT, LONG_WAIT, LONG_WAIT, RETRY_AFTER);
+        List<RequestPriority> admitted = new CopyOnWriteArrayList<>();
+        queue.acquire(RequestPriority.NORMAL);
+
+        CompletableFuture<Void> low = admitAndRecord(queue, RequestPriority.LOW, admitted);
+        awaitQueued(queue, 1);
+        CompletableFuture<Void> high = admitAndRecord(queue, RequestPriority.HIGH, admitted);
+        awaitQueued(queue, 2);
+
+        queue.release();
+        high.get(5, TimeUnit.SECONDS);
+        queue.release();
+        low.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of(RequestPriority.HIGH, RequestPriority.LOW), admitted);
+    }
+
+    @Test
+    void release_WhenQueueIsStale_ServesNewestFirst() throws Exception {
+        AdmissionQueue queue = new AdmissionQueue(1, 2, LONG_WAIT, LONG_WAIT, LONG_WAIT, Duration.ZERO, RETRY_AFTER);
+        List<String> admitted = new CopyOnWriteArrayList<>();
+        queue.acquire(RequestPriority.NORMAL);
+
+        CompletableFuture<Void> oldest = CompletableFuture.runAsync(
+                () -> {
+                    queue.acquire(RequestPriority.NORMAL);
+                    admitted.add("oldest");
+                },
+                executor);
+        awaitQueued(queue, 1);
+        CompletableFuture<Void> newest = CompletableFuture.runAsync(
+                () -> {
+                    queue.acquire(RequestPriority.NORMAL);
+                    admitted.add("newest");
+                },
+                executor);
+        awaitQueued(queue, 2);
+
+        queue.release();
+        newest.get(5, TimeUnit.SECONDS);
+        queue.release();
+        oldest.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("newest", "oldest"), admitted);
+    }
+
+    private CompletableFuture<Void> admitAndRecord(
+            AdmissionQueue queue, RequestPriority priority, List<RequestPriority> admitted) {
+        return CompletableFuture.runAsync(
+                () -> {
+                    queue.acquire(priority);
+                    admitted.add(priority);
+                },
+                executor);
+    }
+
+    private static void awaitQueued(AdmissionQueue queue, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (queue.getQueued() < expected) {
+            if (System.nanoTime() > deadline) {
+                fail("Timed out waiting for " + expected + " queued requests");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.ps.error_handling.config;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+import com.ps.error_handling.controller.ReportController;
+import com.ps.error_handling.model.ReportPayload;
+import com.ps.error_handling.model.ReportStream;
+import com.ps.error_handling.model.User;
+import com.ps.error_handling.service.ReportService;
+import com.ps.error_handling.service.UserService;
+
+@WebMvcTest(
+        value = ReportController.class,
+        properties = {"report-streaming.writer-threads=1", "admission-control.enabled=false"})
+@Import({ReportStreamingConfigTest.TestConfig.class, PropertiesConfig.class})
+public class ReportStreamingConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private UserService userService;
+
+    // Test configuration to provide mock beans
+    static class TestConfig {
+        @Bean
+        @Primary
+        public ReportService reportService() {
+            return Mockito.mock(ReportService.class);
+        }
+
+        @Bean
+        @Primary
+        public UserService userService() {
+            return Mockito.mock(UserService.class);
+        }
+    }
+
+    private static final String VALID_USER_ID = "user123";
+    private static final String VALID_EMAIL = "user@example.com";
+
+    @BeforeEach
+    void setUp() {
+        // Reset mocks before each test
+        Mockito.reset(userService, reportService);
+    }
+
+    @Test
+    void getReport_WhenWriterPoolIsBusy_ClosesRejectedStream() throws Exception {
+        // Set up mocks for this test: the first report holds the only writer thread until released
+        BlockingReportStream first = new BlockingReportStream();
+        BlockingReportStream second = new BlockingReportStream();
+        when(userService.getUser(VALID_USER_ID)).thenReturn(new User(VALID_USER_ID, VALID_EMAIL));
+        when(reportService.openReport(VALID_EMAIL, "first-report")).thenReturn(new ReportPayload.Streamed(first));
+        when(reportService.openReport(VALID_EMAIL, "second-report")).thenReturn(new ReportPayload.Streamed(second));
+
+        MvcResult firstResult = mockMvc.perform(reportRequest("first-report"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertTrue(first.writing.await(5, TimeUnit.SECONDS));
+
+        MvcResult secondResult = mockMvc.perform(reportRequest("second-report"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // The rejected request is dispatched right away, then completed by the container
+        WebAsyncManager secondAsyncManager = WebAsyncUtils.getAsyncManager(secondResult.getRequest());
+        assertInstanceOf(RejectedExecutionException.class, secondAsyncManager.getConcurrentResult());
+        secondResult.getRequest().getAsyncContext().complete();
+        assertTrue(second.closed);
+        assertFalse(first.closed);
+
+        first.release.countDown();
+        firstResult.getAsyncResult();
+        mockMvc.perform(asyncDispatch(firstResult))
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"reportValue\":\"Report data\"}"));
+        assertTrue(first.closed);
+    }
+
+    private static MockHttpServletRequestBuilder reportRequest(String reportName) {
+        return get("/v1/report")
+                .param("userId", VALID_USER_ID)
+                .param("reportName", reportName)
+                .accept(MediaType.APPLICATION_JSON);
+    }
+
+    /** Stream whose end is only read once released, which records whether it was closed. */
+    private static final class BlockingReportStream implements ReportStream {
+        private final CountDownLatch writing = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private boolean firstChunkRead;
+        private volatile boolean closed;
+
+        @Override
+        public long size() {
+            return -1;
+        }
+
+        @Override
+        public ByteBuffer nextChunk() {
+            if (!firstChunkRead) {
+                firstChunkRead = true;
+                return ByteBuffer.wrap("Report data".getBytes(UTF_8));
+            }
+            writing.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
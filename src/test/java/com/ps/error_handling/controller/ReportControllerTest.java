@@ -1,9 +1,20 @@
 package com.ps.error_handling.controller;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -12,19 +23,35 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Primary;
+import org.springframework.core.NestedExceptionUtils;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.util.unit.DataSize;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ps.error_handling.config.PropertiesConfig;
+import com.ps.error_handling.config.ReportStoreProperties;
+import com.ps.error_handling.config.ReportStreamingProperties;
+import com.ps.error_handling.external.ReportClient;
 import com.ps.error_handling.model.Report;
+import com.ps.error_handling.model.ReportPayload;
+import com.ps.error_handling.model.ReportStream;
 import com.ps.error_handling.model.User;
+import com.ps.error_handling.repository.ReportStore;
 import com.ps.error_handling.service.ReportService;
 import com.ps.error_handling.service.UserService;
 import com.ps.error_handling.service.exception.ReportNameNotFoundInReportApiException;
 import com.ps.error_handling.service.exception.UserNotFoundInDbException;
 import com.ps.error_handling.service.exception.UserNotFoundInReportApiException;
 
-@WebMvcTest(ReportController.class)
-@Import(ReportControllerTest.TestConfig.class)
+@WebMvcTest(
+        value = ReportController.class,
+        properties = {"report-cache.max-age.sales-report=5m", "report-cache.not-found-max-age=30s"})
+@Import({ReportControllerTest.TestConfig.class, PropertiesConfig.class})
 public class ReportControllerTest {
 
     @Autowired
@@ -36,6 +63,9 @@ public class ReportControllerTest {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     // Test configuration to provide mock beans
     static class TestConfig {
         @Bean
@@ -66,10 +96,8 @@ public class ReportControllerTest {
     void getReport_WithValidParameters_ReturnsReport() throws Exception {
         // Set up mocks for this test
         User user = new User(VALID_USER_ID, VALID_EMAIL);
-        Report report = new Report(REPORT_VALUE);
-
         when(userService.getUser(VALID_USER_ID)).thenReturn(user);
-        when(reportService.getReport(VALID_EMAIL, VALID_REPORT_NAME)).thenReturn(report);
+        when(reportService.openReport(VALID_EMAIL, VALID_REPORT_NAME)).thenAnswer(invocation -> bufferedReport());
 
         mockMvc.perform(get("/v1/report")
                         .param("userId", VALID_USER_ID)
@@ -77,6 +105,64 @@ public class ReportControllerTest {
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.reportValue").value(REPORT_VALUE))
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().string("Cache-Control", "max-age=300, private"));
+    }
+
+    @Test
+    void getReport_WithoutConfiguredMaxAge_RequiresRevalidation() throws Exception {
+        // Set up mocks for this test
+        User user = new User(VALID_USER_ID, VALID_EMAIL);
+        when(userService.getUser(VALID_USER_ID)).thenReturn(user);
+        when(reportService.openReport(VALID_EMAIL, "other-report")).thenAnswer(invocation -> bufferedReport());
+
+        mockMvc.perform(get("/v1/report")
+                        .param("userId", VALID_USER_ID)
+                        .param("reportName", "other-report")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache, private"));
+    }
+
+    @Test
+    void getReport_WithMatchingIfNoneMatch_ReturnsNotModified() throws Exception {
+        // Set up mocks for this test
+        User user = new User(VALID_USER_ID, VALID_EMAIL);
+        when(userService.getUser(VALID_USER_ID)).thenReturn(user);
+        when(reportService.openReport(VALID_EMAIL, VALID_REPORT_NAME)).thenAnswer(invocation -> bufferedReport());
+
+        String eTag = mockMvc.perform(get("/v1/report")
+                        .param("userId", VALID_USER_ID)
+                        .param("reportName", VALID_REPORT_NAME)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+
+        mockMvc.perform(get("/v1/report")
+                        .param("userId", VALID_USER_ID)
+                        .param("reportName", VALID_REPORT_NAME)
+                        .header("If-None-Match", eTag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void getReport_WithStaleIfNoneMatch_ReturnsReport() throws Exception {
+        // Set up mocks for this test
+        User user = new User(VALID_USER_ID, VALID_EMAIL);
+        when(userService.getUser(VALID_USER_ID)).thenReturn(user);
+        when(reportService.openReport(VALID_EMAIL, VALID_REPORT_NAME)).thenAnswer(invocation -> bufferedReport());
+
+        mockMvc.perform(get("/v1/report")
+                        .param("userId", VALID_USER_ID)
+                        .param("reportName", VALID_REPORT_NAME)
+                        .header("If-None-Match", "\"stale\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
                 .andExpect(jsonPath("$.reportValue").value(REPORT_VALUE));
     }
 
@@ -132,7 +218,7 @@ public class ReportControllerTest {
         // Set up mocks for this test
         User user = new User(VALID_USER_ID, VALID_EMAIL);
         when(userService.getUser(VALID_USER_ID)).thenReturn(user);
-        when(reportService.getReport(VALID_EMAIL, "invalid-report"))
+        when(reportService.openReport(VALID_EMAIL, "invalid-report"))
                 .thenThrow(new ReportNameNotFoundInReportApiException());
 
         mockMvc.perform(get("/v1/report")
@@ -140,7 +226,8 @@ public class ReportControllerTest {
                         .param("reportName", "invalid-report")
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest())
-                .andExpect(jsonPath("$.detail").value("Invalid Report name."));
+                .andExpect(jsonPath("$.detail").value("Invalid Report name."))
+                .andExpect(header().string("Cache-Control", "max-age=30"));
     }
 
     @Test
@@ -148,14 +235,16 @@ public class ReportControllerTest {
         // Set up mocks for this test
         User user = new User(VALID_USER_ID, VALID_EMAIL);
         when(userService.getUser(VALID_USER_ID)).thenReturn(user);
-        when(reportService.getReport(VALID_EMAIL, VALID_REPORT_NAME)).thenThrow(new UserNotFoundInReportApiException());
+        when(reportService.openReport(VALID_EMAIL, VALID_REPORT_NAME))
+                .thenThrow(new UserNotFoundInReportApiException());
 
         mockMvc.perform(get("/v1/report")
                         .param("userId", VALID_USER_ID)
                         .param("reportName", VALID_REPORT_NAME)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound())
-                .andExpect(jsonPath("$.detail").value("Report for given user not found."));
+                .andExpect(jsonPath("$.detail").value("Report for given user not found."))
+                .andExpect(header().string("Cache-Control", "max-age=30"));
     }
 
     @Test
@@ -166,7 +255,7 @@ public class ReportControllerTest {
         User userWithInvalidEmail = new User(invalidUserId, invalidEmail);
 
         when(userService.getUser(invalidUserId)).thenReturn(userWithInvalidEmail);
-        when(reportService.getReport(invalidEmail, VALID_REPORT_NAME))
+        when(reportService.openReport(invalidEmail, VALID_REPORT_NAME))
                 .thenThrow(new IllegalArgumentException("Invalid email format"));
 
         mockMvc.perform(get("/v1/report")
@@ -176,4 +265,134 @@ public class ReportControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.detail").value("Invalid argument: Invalid email format"));
     }
+
+    @Test
+    void getReport_WithLargeReport_StreamsSameJsonAsMaterializedReport() throws Exception {
+        // Set up mocks for this test, with a streamed report split into chunks
+        String value = "Line \"one\"\n\tLine \\two\\ \u0001 caf\u00e9 \u20ac \ud83d\ude00 ".repeat(5);
+        User user = new User(VALID_USER_ID, VALID_EMAIL);
+        ChunkedReportStream stream = new ChunkedReportStream(value, 7, -1);
+        when(userService.getUser(VALID_USER_ID)).thenReturn(user);
+        when(reportService.openReport(VALID_EMAIL, VALID_REPORT_NAME)).thenReturn(new ReportPayload.Streamed(stream));
+
+        performAsync(get("/v1/report")
+                        .param("userId", VALID_USER_ID)
+                        .param("reportName", VALID_REPORT_NAME)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().doesNotExist("ETag"))
+                .andExpect(content().json(objectMapper.writeValueAsString(new Report(value)), true))
+                .andExpect(result -> assertEquals(
+                        Duration.ofMinutes(10).toMillis(),
+                        result.getRequest().getAsyncContext().getTimeout()));
+        assertTrue(stream.writerThread.startsWith("report-writer-"));
+        assertTrue(stream.closed);
+    }
+
+    @Test
+    void getReport_WhenStreamFailsMidway_AbortsResponseAndClosesStream() throws Exception {
+        // Set up mocks for this test, with a report failing after a first chunk large enough to commit the response
+        ChunkedReportStream stream = new ChunkedReportStream("x".repeat(20_000), 10_000, 1);
+        User user = new User(VALID_USER_ID, VALID_EMAIL);
+        when(userService.getUser(VALID_USER_ID)).thenReturn(user);
+        when(reportService.openReport(VALID_EMAIL, VALID_REPORT_NAME)).thenReturn(new ReportPayload.Streamed(stream));
+
+        MvcResult result = mockMvc.perform(get("/v1/report")
+                        .param("userId", VALID_USER_ID)
+                        .param("reportName", VALID_REPORT_NAME)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult();
+
+        Exception exception = assertThrows(Exception.class, () -> mockMvc.perform(asyncDispatch(result)));
+        Throwable cause = NestedExceptionUtils.getMostSpecificCause(exception);
+        assertInstanceOf(IOException.class, cause);
+        assertEquals("Report source failed", cause.getMessage());
+        // The first chunk went out, and the response was left truncated rather than closed as a complete document
+        String body = result.getResponse().getContentAsString();
+        assertTrue(result.getResponse().isCommitted());
+        assertEquals("{\"reportValue\":\"" + "x".repeat(10_000), body);
+        assertThrows(JsonProcessingException.class, () -> objectMapper.readValue(body, Report.class));
+        assertTrue(stream.closed);
+    }
+
+    @Test
+    void getReport_WhenStreamFailsOnFirstChunk_ReturnsInternalServerError() throws Exception {
+        // Set up mocks for this test, opening a report that fails on its first chunk through an actual ReportService
+        ChunkedReportStream stream = new ChunkedReportStream("x".repeat(20_000), 10_000, 0);
+        ReportClient reportClient = Mockito.mock(ReportClient.class);
+        when(reportClient.openReport(VALID_EMAIL, VALID_REPORT_NAME)).thenReturn(stream);
+        ReportService actualReportService = new ReportService(
+                reportClient,
+                new ReportStore(new ReportStoreProperties(
+                        false, Path.of("report-store.dat"), DataSize.ofKilobytes(64), 16, Duration.ofMinutes(10))),
+                new ReportStreamingProperties(DataSize.ofKilobytes(1), 1, Duration.ofMinutes(10)));
+        User user = new User(VALID_USER_ID, VALID_EMAIL);
+        when(userService.getUser(VALID_USER_ID)).thenReturn(user);
+        when(reportService.openReport(VALID_EMAIL, VALID_REPORT_NAME))
+                .thenAnswer(invocation -> actualReportService.openReport(VALID_EMAIL, VALID_REPORT_NAME));
+
+        mockMvc.perform(get("/v1/report")
+                        .param("userId", VALID_USER_ID)
+                        .param("reportName", VALID_REPORT_NAME)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isInternalServerError())
+                .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(jsonPath("$.detail").value("Internal server error"));
+        assertTrue(stream.closed);
+    }
+
+    private ResultActions performAsync(MockHttpServletRequestBuilder requestBuilder) throws Exception {
+        MvcResult result = mockMvc.perform(requestBuilder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+
+    private static ReportPayload bufferedReport() {
+        return new ReportPayload.Buffered(ByteBuffer.wrap(REPORT_VALUE.getBytes(UTF_8)));
+    }
+
+    /** Stream of unknown size, made of direct buffers of the given size, which records how it was written. */
+    private static final class ChunkedReportStream implements ReportStream {
+        private final ByteBuffer bytes;
+        private final int chunkSize;
+        private final int failingChunk;
+        private int chunksRead;
+        private volatile String writerThread;
+        private volatile boolean closed;
+
+        /** Creates a stream whose read of the chunk at index {@code failingChunk} fails, if it is not negative. */
+        private ChunkedReportStream(String value, int chunkSize, int failingChunk) {
+            this.bytes = ByteBuffer.wrap(value.getBytes(UTF_8));
+            this.chunkSize = chunkSize;
+            this.failingChunk = failingChunk;
+        }
+
+        @Override
+        public long size() {
+            return -1;
+        }
+
+        @Override
+        public ByteBuffer nextChunk() throws IOException {
+            writerThread = Thread.currentThread().getName();
+            if (chunksRead++ == failingChunk) {
+                throw new IOException("Report source failed");
+            }
+            if (!bytes.hasRemaining()) {
+                return null;
+            }
+            ByteBuffer slice = bytes.slice(bytes.position(), Math.min(chunkSize, bytes.remaining()));
+            bytes.position(bytes.position() + slice.remaining());
+            return ByteBuffer.allocateDirect(slice.remaining()).put(slice).flip();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
 }
@@ -0,0 +1,252 @@
+package com.ps.error_handling.repository;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import com.ps.error_handling.config.ReportStoreProperties;
+
+public class ReportStoreTest {
+
+    private static final String EMAIL = "user@example.com";
+    private static final String REPORT_NAME = "sales-report";
+    private static final Duration TTL = Duration.ofMinutes(10);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void find_AfterPut_ReturnsValue() {
+        try (ReportStore store = newStore(DataSize.ofKilobytes(64), 16, TTL)) {
+            store.put(EMAIL, REPORT_NAME, value("Report data"));
+
+            assertEquals(Optional.of("Report data"), find(store, EMAIL, REPORT_NAME));
+            assertEquals(Optional.empty(), find(store, EMAIL, "other-report"));
+            assertEquals(Optional.empty(), find(store, "other@example.com", REPORT_NAME));
+        }
+    }
+
+    @Test
+    void find_AfterReopen_ReturnsValue() {
+        try (ReportStore store = newStore(DataSize.ofKilobytes(64), 16, TTL)) {
+            store.put(EMAIL, REPORT_NAME, value("Report data"));
+        }
+
+        try (ReportStore store = newStore(DataSize.ofKilobytes(64), 16, TTL)) {
+            assertEquals(Optional.of("Report data"), find(store, EMAIL, REPORT_NAME));
+        }
+    }
+
+    @Test
+    void put_WithSameKey_ReplacesPreviousReport() {
+        try (ReportStore store = newStore(DataSize.ofKilobytes(64), 16, TTL)) {
+            store.put(EMAIL, REPORT_NAME, value("First"));
+            store.put(EMAIL, REPORT_NAME, value("Second"));
+
+            assertEquals(Optional.of("Second"), find(store, EMAIL, REPORT_NAME));
+            assertEquals(1, store.size());
+        }
+    }
+
+    @Test
+    void find_WhenExpired_ReturnsEmpty() throws InterruptedException {
+        try (ReportStore store = newStore(DataSize.ofKilobytes(64), 16, Duration.ofMillis(1))) {
+            store.put(EMAIL, REPORT_NAME, value("Report data"));
+            Thread.sleep(10);
+
+            assertEquals(Optional.empty(), find(store, EMAIL, REPORT_NAME));
+        }
+    }
+
+    @Test
+    void find_WithCorruptRecord_ReturnsEmptyAndKeepsAccepting() throws IOException {
+        try (ReportStore store = newStore(DataSize.ofKilobytes(64), 16, TTL)) {
+            store.put(EMAIL, REPORT_NAME, value("Report data"));
+        }
+        flipLastValueByte();
+
+        try (ReportStore store = newStore(DataSize.ofKilobytes(64), 16, TTL)) {
+            assertEquals(Optional.empty(), find(store, EMAIL, REPORT_NAME));
+
+            store.put(EMAIL, REPORT_NAME, value("Fresh data"));
+            assertEquals(Optional.of("Fresh data"), find(store, EMAIL, REPORT_NAME));
+        }
+    }
+
+    @Test
+    void put_WhenFull_CompactsToLatestRecords() {
+        try (ReportStore store = newStore(DataSize.ofKilobytes(1), 16, TTL)) {
+            for (int i = 0; i < 200; i++) {
+                store.put(EMAIL, REPORT_NAME, value("Report data " + i));
+            }
+
+            assertEquals(Optional.of("Report data 199"), find(store, EMAIL, REPORT_NAME));
+            assertEquals(1, store.size());
+            assertTrue(store.getCompactionCount() > 0);
+        }
+    }
+
+    @Test
+    void compact_WritesNextGenerationAndDeletesPreviousOne() throws IOException {
+        try (ReportStore store = newStore(DataSize.ofKilobytes(1), 16, TTL)) {
+            for (int i = 0; i < 20; i++) {
+                store.put(EMAIL, REPORT_NAME, value("Report data " + i));
+            }
+            assertEquals(1, store.getCompactionCount());
+            assertEquals(List.of(generationPath(2)), storeFiles());
+        }
+
+        Files.write(tempDir.resolve("report-store.dat.3.tmp"), new byte[] {1, 2, 3});
+        try (ReportStore store = newStore(DataSize.ofKilobytes(1), 16, TTL)) {
+            assertEquals(Optional.of("Report data 19"), find(store, EMAIL, REPORT_NAME));
+            assertEquals(List.of(generationPath(2)), storeFiles());
+        }
+    }
+
+    @Test
+    void put_WhenFullOfLiveRecords_DropsNewReportsWithoutCompacting() {
+        try (ReportStore store = newStore(DataSize.ofKilobytes(1), 16, TTL)) {
+            for (int i = 0; i < 40; i++) {
+                store.put("user" + i + "@example.com", REPORT_NAME, value("Report data"));
+            }
+
+            assertEquals(0, store.getCompactionCount());
+            assertTrue(store.size() < 40);
+            assertEquals(Optional.of("Report data"), find(store, "user0@example.com", REPORT_NAME));
+            assertEquals(Optional.empty(), find(store, "user39@example.com", REPORT_NAME));
+        }
+    }
+
+    @Test
+    void put_WhenFull_DropsExpiredRecords() throws InterruptedException {
+        try (ReportStore store = newStore(DataSize.ofKilobytes(1), 16, Duration.ofMillis(500))) {
+            for (int i = 0; i < 10; i++) {
+                store.put("user" + i + "@example.com", REPORT_NAME, value("Report data"));
+            }
+            Thread.sleep(600);
+            for (int i = 10; i < 20; i++) {
+                store.put("user" + i + "@example.com", REPORT_NAME, value("Report data"));
+            }
+
+            assertEquals(10, store.size());
+            for (int i = 10; i < 20; i++) {
+                assertEquals(Optional.of("Report data"), find(store, "user" + i + "@example.com", REPORT_NAME));
+            }
+        }
+    }
+
+    @Test
+    void put_BeyondExpectedEntries_GrowsIndex() {
+        try (ReportStore store = newStore(DataSize.ofKilobytes(64), 2, TTL)) {
+            for (int i = 0; i < 100; i++) {
+                store.put("user" + i + "@example.com", REPORT_NAME, value("Report " + i));
+            }
+
+            assertEquals(100, store.size());
+            for (int i = 0; i < 100; i++) {
+                assertEquals(Optional.of("Report " + i), find(store, "user" + i + "@example.com", REPORT_NAME));
+            }
+        }
+    }
+
+    @Test
+    void constructor_WhenLockedByAnotherStore_RunsWithoutIt() {
+        try (ReportStore store = newStore(DataSize.ofKilobytes(64), 16, TTL)) {
+            store.put(EMAIL, REPORT_NAME, value("Report data"));
+
+            try (ReportStore second = newStore(DataSize.ofKilobytes(64), 16, TTL)) {
+                second.put(EMAIL, "other-report", value("Other data"));
+
+                assertEquals(Optional.empty(), find(second, EMAIL, REPORT_NAME));
+                assertEquals(0, second.size());
+            }
+            assertEquals(Optional.of("Report data"), find(store, EMAIL, REPORT_NAME));
+            assertEquals(Optional.empty(), find(store, EMAIL, "other-report"));
+        }
+
+        try (ReportStore store = newStore(DataSize.ofKilobytes(64), 16, TTL)) {
+            assertEquals(Optional.of("Report data"), find(store, EMAIL, REPORT_NAME));
+        }
+    }
+
+    @Test
+    void find_WhenDisabled_ReturnsEmpty() throws IOException {
+        ReportStoreProperties properties =
+                new ReportStoreProperties(false, storePath(), DataSize.ofKilobytes(64), 16, TTL);
+        try (ReportStore store = new ReportStore(properties)) {
+            store.put(EMAIL, REPORT_NAME, value("Report data"));
+
+            assertEquals(Optional.empty(), find(store, EMAIL, REPORT_NAME));
+            assertEquals(List.of(), storeFiles());
+        }
+    }
+
+    @Test
+    void find_ReturnsReadOnlySliceOfStoredValue() {
+        try (ReportStore store = newStore(DataSize.ofKilobytes(64), 16, TTL)) {
+            ByteBuffer value = ByteBuffer.wrap("Report d\u00e9ta".getBytes(UTF_8));
+            store.put(EMAIL, REPORT_NAME, value);
+
+            ByteBuffer stored = store.find(EMAIL, REPORT_NAME).orElseThrow();
+            assertTrue(stored.isReadOnly());
+            assertEquals(value, stored);
+            assertEquals(0, value.position());
+        }
+    }
+
+    private ReportStore newStore(DataSize capacity, int expectedEntries, Duration ttl) {
+        return new ReportStore(new ReportStoreProperties(true, storePath(), capacity, expectedEntries, ttl));
+    }
+
+    private static ByteBuffer value(String value) {
+        return ByteBuffer.wrap(value.getBytes(UTF_8));
+    }
+
+    private static Optional<String> find(ReportStore store, String email, String reportName) {
+        return store.find(email, reportName).map(value -> UTF_8.decode(value).toString());
+    }
+
+    private Path storePath() {
+        return tempDir.resolve("report-store.dat");
+    }
+
+    private Path generationPath(long generation) {
+        return tempDir.resolve("report-store.dat." + generation);
+    }
+
+    /** Lists the files of the store, except its lock file. */
+    private List<Path> storeFiles() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.filter(file -> !file.equals(tempDir.resolve("report-store.dat.lock")))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /** Flips the last byte of the first record, which belongs to its value. */
+    private void flipLastValueByte() throws IOException {
+        try (FileChannel channel =
+                FileChannel.open(generationPath(1), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer length = ByteBuffer.allocate(4);
+            channel.read(length, 8);
+            long lastValueByte = 8 + 8 + length.flip().getInt() - 1;
+            ByteBuffer value = ByteBuffer.allocate(1);
+            channel.read(value, lastValueByte);
+            channel.write(ByteBuffer.wrap(new byte[] {(byte) (value.get(0) ^ 0xff)}), lastValueByte);
+        }
+    }
+}
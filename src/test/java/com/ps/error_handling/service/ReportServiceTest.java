@@ -0,0 +1,132 @@
+package com.ps.error_handling.service;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import com.ps.error_handling.config.ReportStoreProperties;
+import com.ps.error_handling.config.ReportStreamingProperties;
+import com.ps.error_handling.external.ReportClient;
+import com.ps.error_handling.external.exception.InvalidReportNameException;
+import com.ps.error_handling.model.Report;
+import com.ps.error_handling.model.ReportPayload;
+import com.ps.error_handling.model.ReportStream;
+import com.ps.error_handling.repository.ReportStore;
+import com.ps.error_handling.service.exception.ReportClientUnexpectedException;
+import com.ps.error_handling.service.exception.ReportNameNotFoundInReportApiException;
+
+public class ReportServiceTest {
+
+    private static final String EMAIL = "user@example.com";
+    private static final String REPORT_NAME = "sales-report";
+
+    @TempDir
+    Path tempDir;
+
+    private ReportClient reportClient;
+    private ReportStore reportStore;
+    private ReportService reportService;
+
+    @BeforeEach
+    void setUp() {
+        reportClient = mock(ReportClient.class);
+        reportStore = new ReportStore(new ReportStoreProperties(
+                true, tempDir.resolve("report-store.dat"), DataSize.ofKilobytes(64), 16, Duration.ofMinutes(10)));
+        reportService = new ReportService(
+                reportClient,
+                reportStore,
+                new ReportStreamingProperties(DataSize.ofBytes(64), 1, Duration.ofMinutes(10)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        reportStore.close();
+    }
+
+    @Test
+    void openReport_WhenStored_ReturnsStoredValueWithoutCallingClient() {
+        reportStore.put(EMAIL, REPORT_NAME, ByteBuffer.wrap("Stored data".getBytes(UTF_8)));
+
+        assertEquals("Stored data", bufferedValue(reportService.openReport(EMAIL, REPORT_NAME)));
+        verifyNoInteractions(reportClient);
+    }
+
+    @Test
+    void openReport_WhenNotStored_StoresReportFromClient() {
+        when(reportClient.openReport(EMAIL, REPORT_NAME)).thenReturn(ReportStream.of(new Report("Client data")));
+
+        assertEquals("Client data", bufferedValue(reportService.openReport(EMAIL, REPORT_NAME)));
+        assertEquals(Optional.of("Client data"), storedValue());
+
+        assertEquals("Client data", bufferedValue(reportService.openReport(EMAIL, REPORT_NAME)));
+        verify(reportClient, times(1)).openReport(EMAIL, REPORT_NAME);
+    }
+
+    @Test
+    void openReport_WithReportAboveBufferThreshold_StreamsItWithoutStoring() throws IOException {
+        when(reportClient.openReport(EMAIL, REPORT_NAME)).thenReturn(ReportStream.of(new Report("x".repeat(100))));
+
+        ReportPayload payload = reportService.openReport(EMAIL, REPORT_NAME);
+
+        ReportPayload.Streamed streamed = assertInstanceOf(ReportPayload.Streamed.class, payload);
+        assertEquals("x".repeat(100), UTF_8.decode(streamed.stream().readAll()).toString());
+        assertEquals(Optional.empty(), storedValue());
+    }
+
+    @Test
+    void openReport_WhenStreamedReportFailsOnFirstChunk_TranslatesErrorAndClosesIt() {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(reportClient.openReport(EMAIL, REPORT_NAME)).thenReturn(new ReportStream() {
+            @Override
+            public long size() {
+                return -1;
+            }
+
+            @Override
+            public ByteBuffer nextChunk() throws IOException {
+                throw new IOException("Report source failed");
+            }
+
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        });
+
+        ReportClientUnexpectedException ex =
+                assertThrows(ReportClientUnexpectedException.class, () -> reportService.openReport(EMAIL, REPORT_NAME));
+        assertInstanceOf(IOException.class, ex.getCause());
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void openReport_WhenClientFails_TranslatesErrorWithoutStoring() {
+        when(reportClient.openReport(EMAIL, REPORT_NAME)).thenThrow(new InvalidReportNameException());
+
+        assertThrows(ReportNameNotFoundInReportApiException.class, () -> reportService.openReport(EMAIL, REPORT_NAME));
+        assertEquals(Optional.empty(), storedValue());
+    }
+
+    private Optional<String> storedValue() {
+        return reportStore.find(EMAIL, REPORT_NAME).map(value -> UTF_8.decode(value)
+                .toString());
+    }
+
+    private static String bufferedValue(ReportPayload payload) {
+        ReportPayload.Buffered buffered = assertInstanceOf(ReportPayload.Buffered.class, payload);
+        return UTF_8.decode(buffered.value()).toString();
+    }
+}